@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Resource cache with named secondary indexes. An index function maps a resource to the index values it must be found
+ * under; the store keeps, for each index and each value, the resources that map to it. Indexes are updated
+ * incrementally by the mutators below, which are serialized with each other; lookups are lock-free. The store must not
+ * be mutated through its views, and the compute and merge methods are not supported.
+ */
+public class IndexedStore<T extends HasMetadata> extends ConcurrentHashMap<Object, T> {
+
+    private final ConcurrentMap<String, Function<T, Collection<String>>> indexers;
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<Object, T>>> indices;
+
+    public IndexedStore() {
+        this.indexers = new ConcurrentHashMap<>();
+        this.indices = new ConcurrentHashMap<>();
+    }
+
+    /*
+     * Index functions.
+     */
+
+    public static String getKey(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    public static <T extends HasMetadata> Function<T, Collection<String>> byNamespacedName() {
+        return r -> Collections.singletonList(getKey(r.getMetadata().getNamespace(), r.getMetadata().getName()));
+    }
+
+    public static <T extends HasMetadata> Function<T, Collection<String>> byUid() {
+        return r -> Optional.ofNullable(r.getMetadata().getUid())
+                            .map(Collections::singletonList)
+                            .orElse(Collections.emptyList());
+    }
+
+    /*
+     * Index resources by namespace/value of one of their labels.
+     */
+    public static <T extends HasMetadata> Function<T, Collection<String>> byLabel(String label) {
+        return r -> Optional.ofNullable(r.getMetadata().getLabels())
+                            .map(l -> l.get(label))
+                            .map(v -> Collections.singletonList(getKey(r.getMetadata().getNamespace(), v)))
+                            .orElse(Collections.emptyList());
+    }
+
+    public static <T extends HasMetadata> Function<T, Collection<String>> byOwnerUid() {
+        return r -> Optional.ofNullable(r.getMetadata().getOwnerReferences())
+                            .map(l -> l.stream().map(OwnerReference::getUid).collect(Collectors.toList()))
+                            .orElse(Collections.emptyList());
+    }
+
+    /*
+     * Index management.
+     */
+
+    public synchronized void addIndex(String name, Function<T, Collection<String>> function) {
+        indexers.put(name, function);
+        indices.put(name, new ConcurrentHashMap<>());
+        forEach((k, v) -> add(name, function.apply(v), k, v));
+    }
+
+    public List<T> getByIndex(String index, String value) {
+        var bucket = indices.get(index).get(value);
+        return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket.values());
+    }
+
+    public Optional<T> getFirstByIndex(String index, String value) {
+        var bucket = indices.get(index).get(value);
+        return bucket == null ? Optional.empty() : bucket.values().stream().findFirst();
+    }
+
+    public int countByIndex(String index, String value) {
+        var bucket = indices.get(index).get(value);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    private void add(String name, Collection<String> values, Object key, T value) {
+        for (var v : values) {
+            indices.get(name).computeIfAbsent(v, x -> new ConcurrentHashMap<>()).put(key, value);
+        }
+    }
+
+    private void remove(String name, Collection<String> values, Object key) {
+        var index = indices.get(name);
+        for (var v : values) {
+            index.computeIfPresent(v, (x, bucket) -> {
+                bucket.remove(key);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    /*
+     * Add the new entries before removing the old ones, so that a concurrent lookup of a resource whose index value did
+     * not change never misses it. Only the index values the new resource no longer maps to are removed.
+     */
+    private void reindex(Object key, T prev, T cur) {
+        indexers.forEach((name, function) -> {
+            var values = cur == null ? Collections.<String>emptyList() : function.apply(cur);
+            add(name, values, key, cur);
+            if (prev != null) {
+                var stale = new ArrayList<>(function.apply(prev));
+                stale.removeAll(values);
+                remove(name, stale, key);
+            }
+        });
+    }
+
+    /*
+     * Mutators.
+     */
+
+    @Override
+    public synchronized T put(Object key, T value) {
+        var prev = super.put(key, value);
+        reindex(key, prev, value);
+        return prev;
+    }
+
+    @Override
+    public synchronized void putAll(Map<?, ? extends T> m) {
+        m.forEach(this::put);
+    }
+
+    @Override
+    public synchronized T putIfAbsent(Object key, T value) {
+        var prev = super.putIfAbsent(key, value);
+        if (prev == null) {
+            reindex(key, null, value);
+        }
+        return prev;
+    }
+
+    @Override
+    public synchronized T remove(Object key) {
+        var prev = super.remove(key);
+        if (prev != null) {
+            reindex(key, prev, null);
+        }
+        return prev;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        /*
+         * The removal matches by equality: reindex with the stored resource, not with the given one.
+         */
+        var prev = super.get(key);
+        if (!super.remove(key, value)) {
+            return false;
+        }
+        reindex(key, prev, null);
+        return true;
+    }
+
+    @Override
+    public synchronized T replace(Object key, T value) {
+        var prev = super.replace(key, value);
+        if (prev != null) {
+            reindex(key, prev, value);
+        }
+        return prev;
+    }
+
+    @Override
+    public synchronized boolean replace(Object key, T oldValue, T newValue) {
+        var prev = super.get(key);
+        if (!super.replace(key, oldValue, newValue)) {
+            return false;
+        }
+        reindex(key, prev, newValue);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        indices.values().forEach(Map::clear);
+    }
+
+    /*
+     * Unsupported mutators: they would bypass the indexes.
+     */
+
+    @Override
+    public T compute(Object key, BiFunction<? super Object, ? super T, ? extends T> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T computeIfAbsent(Object key, Function<? super Object, ? extends T> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T computeIfPresent(Object key, BiFunction<? super Object, ? super T, ? extends T> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T merge(Object key, T value, BiFunction<? super T, ? super T, ? extends T> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super Object, ? super T, ? extends T> function) {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.conductor;
+
+import com.ibm.cnp.utils.ConditionRegistry;
+import com.ibm.cnp.utils.Threads;
+import com.ibm.cnp.utils.TimerWheel;
+import com.ibm.cnp.utils.WorkQueue;
+import lombok.Getter;
+import lombok.var;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/*
+ * State machine engine driven by a transition table. Keys are routed to shards, each made of a work queue and a
+ * thread, so a given key is always reconciled by the same thread and never concurrently. Events are collapsed per key:
+ * a key is reconciled against the current content of the stores, not against the events that woke it up.
+ *
+ * When no transition of the current state fires, the key waits until the guard of one of them holds: signal() only
+ * wakes it up then, while enqueue() always does.
+ *
+ * With virtual threads, the shards only hand the keys out and each reconciliation runs on a virtual thread of its own,
+ * so reconciliations that block on the API server or on the coordinator do not hold the other keys of the shard back.
+ * The work queue still never hands out a key that is being reconciled.
+ *
+ * The work queues can be bounded. Keys are coalesced, so the queues never hold more keys than there are registered
+ * resources, and a bound makes the event threads wait for the shards instead. Timers bypass the bound.
+ */
+public class Conductor<S extends Enum<S>, R> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Conductor.class);
+
+    private final Function<String, Optional<R>> lookup;
+    private final Function<R, S> stateOf;
+    private final TransitionTable<S, R> table;
+
+    private final AtomicBoolean keepRunning;
+    private final Set<String> registry;
+    private final ConditionRegistry<String> conditions;
+    private final TimerWheel timer;
+    private final Map<S, Long> deadlines;
+    private final ConcurrentMap<String, KeyTimers<S>> timers;
+    @Getter
+    private final ConductorMetrics metrics;
+    private final List<Shard> shards;
+    private final ExecutorService reconcilers;
+    private long recheckPeriod;
+
+    private class Shard implements Runnable {
+
+        private final WorkQueue<String> workQueue;
+        private final Thread thread;
+
+        Shard(String name, int capacity) {
+            this.workQueue = new WorkQueue<>(capacity);
+            this.thread = Threads.newThread(name, this);
+        }
+
+        @Override
+        public void run() {
+            while (keepRunning.get()) {
+                try {
+                    var key = workQueue.poll(5, TimeUnit.SECONDS);
+                    if (key == null) {
+                        continue;
+                    }
+                    if (reconcilers != null) {
+                        reconcilers.execute(() -> reconcile(workQueue, key));
+                    } else {
+                        reconcile(workQueue, key);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+    }
+
+    public Conductor(String name, int workers, TransitionTable<S, R> table, Function<String, Optional<R>> lookup,
+                     Function<R, S> stateOf) {
+        this(name, workers, Integer.MAX_VALUE, table, lookup, stateOf);
+    }
+
+    /*
+     * The capacity is split evenly between the shards.
+     */
+    public Conductor(String name, int workers, int capacity, TransitionTable<S, R> table,
+                     Function<String, Optional<R>> lookup, Function<R, S> stateOf) {
+        this.lookup = lookup;
+        this.stateOf = stateOf;
+        this.table = table;
+        this.keepRunning = new AtomicBoolean(true);
+        this.registry = ConcurrentHashMap.newKeySet();
+        this.conditions = new ConditionRegistry<>();
+        this.timer = TimerWheel.shared();
+        this.deadlines = new EnumMap<>(table.getType());
+        this.timers = new ConcurrentHashMap<>();
+        this.metrics = new ConductorMetrics();
+        this.shards = new ArrayList<>();
+        var count = Math.max(workers, 1);
+        var shardCapacity = capacity == Integer.MAX_VALUE ? capacity : (capacity + count - 1) / count;
+        for (int i = 0; i < count; i += 1) {
+            this.shards.add(new Shard(name + "-" + i, shardCapacity));
+        }
+        this.reconcilers = Threads.isVirtual() ? Threads.newPerTaskExecutor(name + "-reconcile") : null;
+        this.recheckPeriod = 0;
+    }
+
+    /*
+     * Bound the time a key can spend in a state. Must be called before the conductor is started.
+     */
+    public void setDeadline(S state, long timeout, TimeUnit unit) {
+        deadlines.put(state, unit.toMillis(timeout));
+    }
+
+    /*
+     * Re-evaluate the active keys periodically, in case an event was missed. Must be called before the conductor is
+     * started.
+     */
+    public void setRecheckPeriod(long period, TimeUnit unit) {
+        recheckPeriod = unit.toMillis(period);
+    }
+
+    private WorkQueue<String> getWorkQueue(String key) {
+        return shards.get(Math.floorMod(key.hashCode(), shards.size())).workQueue;
+    }
+
+    /*
+     * Largest number of keys queued at once in a shard.
+     */
+    public int getQueueHighWaterMark() {
+        var mark = 0;
+        for (var shard : shards) {
+            mark = Math.max(mark, shard.workQueue.getHighWaterMark());
+        }
+        return mark;
+    }
+
+    public int getQueueSize() {
+        var size = 0;
+        for (var shard : shards) {
+            size += shard.workQueue.size();
+        }
+        return size;
+    }
+
+    /*
+     * Key management. Only registered keys are reconciled.
+     */
+
+    public void register(String key) {
+        registry.add(key);
+        enqueue(key);
+    }
+
+    public void unregister(String key) {
+        registry.remove(key);
+        conditions.unregister(key);
+        disarm(key);
+    }
+
+    public boolean isRegistered(String key) {
+        return registry.contains(key);
+    }
+
+    /*
+     * Wake the key up regardless of the condition it waits for.
+     */
+    public void enqueue(String key) {
+        conditions.unregister(key);
+        getWorkQueue(key).add(key);
+    }
+
+    /*
+     * Wake the key up from a timer, regardless of the condition it waits for and of the bound of the queue.
+     */
+    private void wake(String key) {
+        conditions.unregister(key);
+        getWorkQueue(key).addUnbounded(key);
+    }
+
+    /*
+     * Wake the key up if the condition it waits for, if any, holds.
+     */
+    public void signal(String key) {
+        if (conditions.signal(key)) {
+            getWorkQueue(key).add(key);
+        }
+    }
+
+    /*
+     * Reconcile the key again after a backoff, e.g. when an action failed asynchronously.
+     */
+    public void retry(String key) {
+        metrics.onFailure();
+        getWorkQueue(key).addRateLimited(key);
+    }
+
+    public void start() {
+        for (var shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public void close() throws InterruptedException {
+        this.keepRunning.set(false);
+        for (var shard : shards) {
+            shard.workQueue.shutDown();
+        }
+        for (var shard : shards) {
+            shard.thread.join();
+        }
+        if (reconcilers != null) {
+            reconcilers.shutdown();
+            reconcilers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /*
+     * Reconciliation.
+     */
+
+    private void reconcile(WorkQueue<String> workQueue, String key) {
+        try {
+            reconcile(key);
+        } finally {
+            workQueue.done(key);
+        }
+    }
+
+    private void reconcile(String key) {
+        var workQueue = getWorkQueue(key);
+        var resource = registry.contains(key) ? lookup.apply(key) : Optional.<R>empty();
+        if (!resource.isPresent()) {
+            LOGGER.trace("Key {} not registered", key);
+            conditions.unregister(key);
+            disarm(key);
+            workQueue.forget(key);
+            return;
+        }
+        var start = System.nanoTime();
+        try {
+            process(key, resource.get());
+            workQueue.forget(key);
+        } catch (RuntimeException e) {
+            LOGGER.error("Reconciliation of {} failed", key, e);
+            retry(key);
+        } finally {
+            metrics.onReconciliation(System.nanoTime() - start);
+        }
+    }
+
+    private void process(String key, R resource) {
+        var state = stateOf.apply(resource);
+        var transitions = table.get(state);
+        /*
+         * Final state, nothing left to wait for.
+         */
+        if (transitions.isEmpty()) {
+            conditions.unregister(key);
+            disarm(key);
+            return;
+        }
+        /*
+         * Fire the first transition that matches.
+         */
+        var keyTimers = arm(key, state);
+        for (var transition : transitions) {
+            if (transition.getTrigger() == ETrigger.DEADLINE && !keyTimers.isExpired()) {
+                continue;
+            }
+            if (!transition.getGuard().test(key, resource)) {
+                continue;
+            }
+            conditions.unregister(key);
+            metrics.onTransition();
+            transition.getAction().apply(key, resource);
+            return;
+        }
+        /*
+         * Wait for one of the guards to hold. The key is woken up by the signal that makes it hold.
+         */
+        LOGGER.trace("Key {} in progress, waiting", key);
+        metrics.onWait();
+        conditions.register(key, () -> {
+            for (var transition : transitions) {
+                if (transition.getTrigger() == ETrigger.ANY && transition.getGuard().test(key, resource)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /*
+     * Timers. Timers only wake the key up, the transitions decide what to do about it.
+     */
+
+    private KeyTimers<S> arm(String key, S state) {
+        var keyTimers = timers.computeIfAbsent(key, k -> new KeyTimers<>());
+        /*
+         * Arm the deadline of the state when the key enters it.
+         */
+        var deadline = deadlines.get(state);
+        if (keyTimers.enter(state) && deadline != null) {
+            keyTimers.setDeadline(timer.schedule(() -> {
+                metrics.onDeadline();
+                keyTimers.expire(state);
+                wake(key);
+            }, deadline, TimeUnit.MILLISECONDS));
+        }
+        /*
+         * Arm the next re-check.
+         */
+        if (recheckPeriod > 0 && keyTimers.needsRecheck()) {
+            keyTimers.setRecheck(timer.schedule(() -> {
+                metrics.onRecheck();
+                wake(key);
+            }, recheckPeriod, TimeUnit.MILLISECONDS));
+        }
+        return keyTimers;
+    }
+
+    private void disarm(String key) {
+        var keyTimers = timers.remove(key);
+        if (keyTimers != null) {
+            keyTimers.cancel();
+        }
+    }
+
+}
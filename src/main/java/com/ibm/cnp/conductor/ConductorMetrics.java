@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.conductor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counters of a conductor. They are only ever incremented, so rates are computed by sampling them.
+ */
+public class ConductorMetrics {
+
+    private final LongAdder reconciliations;
+    private final LongAdder reconciliationNanos;
+    private final LongAdder transitions;
+    private final LongAdder waits;
+    private final LongAdder deadlines;
+    private final LongAdder rechecks;
+    private final LongAdder failures;
+
+    ConductorMetrics() {
+        this.reconciliations = new LongAdder();
+        this.reconciliationNanos = new LongAdder();
+        this.transitions = new LongAdder();
+        this.waits = new LongAdder();
+        this.deadlines = new LongAdder();
+        this.rechecks = new LongAdder();
+        this.failures = new LongAdder();
+    }
+
+    void onReconciliation(long nanos) {
+        reconciliations.increment();
+        reconciliationNanos.add(nanos);
+    }
+
+    void onTransition() {
+        transitions.increment();
+    }
+
+    void onWait() {
+        waits.increment();
+    }
+
+    void onDeadline() {
+        deadlines.increment();
+    }
+
+    void onRecheck() {
+        rechecks.increment();
+    }
+
+    void onFailure() {
+        failures.increment();
+    }
+
+    public long getReconciliations() {
+        return reconciliations.sum();
+    }
+
+    public long getReconciliationTime(TimeUnit unit) {
+        return unit.convert(reconciliationNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getTransitions() {
+        return transitions.sum();
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getDeadlines() {
+        return deadlines.sum();
+    }
+
+    public long getRechecks() {
+        return rechecks.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "reconciliations=" + getReconciliations() + ", time=" + getReconciliationTime(TimeUnit.MILLISECONDS)
+               + "ms, transitions=" + getTransitions() + ", waits=" + getWaits() + ", deadlines=" + getDeadlines()
+               + ", rechecks=" + getRechecks() + ", failures=" + getFailures();
+    }
+
+}
@@ -13,7 +13,11 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.ibm.cnp.utils;
+package com.ibm.cnp.conductor;
+
+@FunctionalInterface
+public interface IAction<R> {
+
+    void apply(String key, R resource);
 
-public class OperationInProgressException extends Exception {
 }
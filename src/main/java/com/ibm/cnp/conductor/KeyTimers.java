@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.conductor;
+
+import com.ibm.cnp.utils.TimerWheel;
+
+/*
+ * Timers of a key: the deadline of the state the key is in and its next periodic re-check. A deadline only expires
+ * the state it was armed for, so a deadline that fires after the key moved on is ignored.
+ */
+class KeyTimers<S extends Enum<S>> {
+
+    private S state;
+    private TimerWheel.Timeout deadline;
+    private TimerWheel.Timeout recheck;
+    private boolean expired;
+
+    KeyTimers() {
+        this.state = null;
+        this.deadline = null;
+        this.recheck = null;
+        this.expired = false;
+    }
+
+    /*
+     * Record the state of the key. Return true if the key entered a new state, in which case the previous deadline is
+     * cancelled.
+     */
+    synchronized boolean enter(S state) {
+        if (this.state == state) {
+            return false;
+        }
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+        this.state = state;
+        this.expired = false;
+        return true;
+    }
+
+    synchronized void setDeadline(TimerWheel.Timeout deadline) {
+        this.deadline = deadline;
+    }
+
+    synchronized void expire(S state) {
+        if (this.state == state) {
+            this.expired = true;
+        }
+    }
+
+    synchronized boolean isExpired() {
+        return expired;
+    }
+
+    synchronized boolean needsRecheck() {
+        return recheck == null || recheck.isExpired();
+    }
+
+    synchronized void setRecheck(TimerWheel.Timeout recheck) {
+        this.recheck = recheck;
+    }
+
+    synchronized void cancel() {
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+        if (recheck != null) {
+            recheck.cancel();
+            recheck = null;
+        }
+    }
+
+}
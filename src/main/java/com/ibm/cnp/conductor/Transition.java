@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.conductor;
+
+import lombok.Getter;
+
+@Getter
+class Transition<S extends Enum<S>, R> {
+
+    private final S state;
+    private final ETrigger trigger;
+    private final IGuard<R> guard;
+    private final IAction<R> action;
+
+    Transition(S state, ETrigger trigger, IGuard<R> guard, IAction<R> action) {
+        this.state = state;
+        this.trigger = trigger;
+        this.guard = guard;
+        this.action = action;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.conductor;
+
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Transitions of a state machine, by state. The transitions of a state are evaluated in the order they were added and
+ * the first one whose trigger and guard match runs its action. States without transitions are final.
+ */
+public class TransitionTable<S extends Enum<S>, R> {
+
+    private static final IGuard<?> ALWAYS = (key, resource) -> true;
+
+    private final Class<S> type;
+    private final Map<S, List<Transition<S, R>>> transitions;
+
+    public TransitionTable(Class<S> type) {
+        this.type = type;
+        this.transitions = new EnumMap<>(type);
+    }
+
+    public TransitionTable<S, R> add(S state, IGuard<R> guard, IAction<R> action) {
+        return add(state, ETrigger.ANY, guard, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TransitionTable<S, R> add(S state, ETrigger trigger, IGuard<R> guard, IAction<R> action) {
+        var transition = new Transition<S, R>(state, trigger, guard == null ? (IGuard<R>) ALWAYS : guard, action);
+        transitions.computeIfAbsent(state, s -> new ArrayList<>()).add(transition);
+        return this;
+    }
+
+    Class<S> getType() {
+        return type;
+    }
+
+    List<Transition<S, R>> get(S state) {
+        return transitions.getOrDefault(state, Collections.emptyList());
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.events;
+
+import com.ibm.cnp.utils.ObjectUtils;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.zjsonpatch.JsonDiff;
+import lombok.var;
+
+import java.util.Arrays;
+
+/*
+ * Built-in event filters.
+ */
+public final class EventFilters {
+
+    private EventFilters() {
+    }
+
+    /*
+     * Drop the modifications that carry the resource version already known, such as resyncs.
+     */
+    public static <T extends HasMetadata> IEventFilter<T> sameResourceVersion() {
+        return (pre, cur) -> {
+            var version = cur.getMetadata().getResourceVersion();
+            return version != null && version.equals(pre.getMetadata().getResourceVersion());
+        };
+    }
+
+    /*
+     * Drop the modifications that leave the generation unchanged, that is the ones that do not touch the spec. Only
+     * use it for resources whose generation is maintained by the API server.
+     */
+    public static <T extends HasMetadata> IEventFilter<T> generationUnchanged() {
+        return (pre, cur) -> {
+            var generation = cur.getMetadata().getGeneration();
+            return generation != null && generation.equals(pre.getMetadata().getGeneration());
+        };
+    }
+
+    /*
+     * Drop the modifications that only change the given JSON pointer paths or their children, e.g. "/metadata". The
+     * resources are diffed as JSON trees, so this filter costs more than the others and should come last.
+     *
+     * Do not use it on the controller of a projected store, e.g. a projected PodStore: the prior resource then comes
+     * from the store and lacks the fields the projection strips, so every modification looks like a change and nothing
+     * is dropped.
+     */
+    public static <T extends HasMetadata> IEventFilter<T> onlyPathsChanged(String... paths) {
+        var prefixes = Arrays.copyOf(paths, paths.length);
+        return (pre, cur) -> {
+            var mapper = ObjectUtils.getObjectMapper();
+            var diff = JsonDiff.asJson(mapper.valueToTree(pre), mapper.valueToTree(cur));
+            for (var op : diff) {
+                var path = op.path("path").asText();
+                if (Arrays.stream(prefixes).noneMatch(p -> path.equals(p) || path.startsWith(p + "/"))) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package com.ibm.cnp.events;
 
+import com.ibm.cnp.utils.KeyedExecutor;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import lombok.var;
 import org.microbean.kubernetes.controller.AbstractEvent;
@@ -22,62 +23,119 @@ import org.microbean.kubernetes.controller.ResourceTrackingEventQueueConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.microbean.kubernetes.controller.AbstractEvent.Type.MODIFICATION;
 
 public abstract class GenericEventQueueConsumer<T extends HasMetadata> extends ResourceTrackingEventQueueConsumer<T>
         implements IEventConsumerDelegate<T> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GenericEventQueueConsumer.class);
 
-    private final List<IEventConsumerDelegate<HasMetadata>> genericListeners;
-    private final List<IEventConsumerDelegate<T>> listeners;
+    private final ListenerRegistry<HasMetadata> genericListeners;
+    private final ListenerRegistry<T> listeners;
+    private final List<IEventFilter<? super T>> filters;
     private final String className;
+    private KeyedExecutor dispatcher;
 
     public GenericEventQueueConsumer(Map<Object, T> knownObjects) {
         super(knownObjects);
-        this.genericListeners = new ArrayList<>();
-        this.listeners = new ArrayList<>();
+        this.genericListeners = new ListenerRegistry<>();
+        this.listeners = new ListenerRegistry<>();
+        this.filters = new CopyOnWriteArrayList<>();
         this.className = this.getClass().getSimpleName();
+        this.dispatcher = null;
+    }
+
+    /*
+     * Dispatch the events on the lanes of an executor instead of the controller thread. Events are keyed by
+     * namespace/name, so the listeners still see the events of a given resource in order. Must be called before the
+     * controller is started.
+     */
+    public void setDispatcher(KeyedExecutor dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /*
+     * Drop the modification events that any of the filters deems a no-op. Filters run on the controller thread, in the
+     * order they were added, before the events are dispatched.
+     */
+    public void addFilter(IEventFilter<? super T> filter) {
+        filters.add(filter);
+    }
+
+    private boolean isNoop(AbstractEvent<? extends T> event) {
+        var pre = event.getPriorResource();
+        if (event.getType() != MODIFICATION || pre == null) {
+            return false;
+        }
+        for (var filter : filters) {
+            if (filter.isNoop(pre, event.getResource())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     protected void accept(AbstractEvent<? extends T> event) {
+        if (isNoop(event)) {
+            LOGGER.trace("NOP {} {}", className, event.getResource().getMetadata().getName());
+            return;
+        }
+        if (dispatcher == null) {
+            dispatch(event);
+            return;
+        }
+        var meta = event.getResource().getMetadata();
+        var key = meta.getNamespace() + "/" + meta.getName();
+        try {
+            dispatcher.execute(key, () -> dispatch(event));
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while dispatching {} {}, event dropped", className, key);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(AbstractEvent<? extends T> event) {
         var cur = event.getResource();
         switch (event.getType()) {
             case ADDITION:
                 LOGGER.trace("ADD {} {}", className, cur.getMetadata().getName());
-                genericListeners.forEach(l -> l.onAddition(event));
-                listeners.forEach(l -> l.onAddition(event));
+                genericListeners.onAddition(event);
+                listeners.onAddition(event);
                 this.onAddition(event);
                 break;
             case MODIFICATION:
                 LOGGER.trace("MOD {} {}", className, cur.getMetadata().getName());
-                genericListeners.forEach(l -> l.onModification(event));
-                listeners.forEach(l -> l.onModification(event));
+                genericListeners.onModification(event);
+                listeners.onModification(event);
                 this.onModification(event);
                 break;
             case DELETION:
                 LOGGER.trace("DEL {} {}", className, cur.getMetadata().getName());
-                genericListeners.forEach(l -> l.onDeletion(event));
-                listeners.forEach(l -> l.onDeletion(event));
+                genericListeners.onDeletion(event);
+                listeners.onDeletion(event);
                 this.onDeletion(event);
                 break;
         }
     }
 
     public void addGenericListener(IEventConsumerDelegate<HasMetadata> listener) {
-        if (genericListeners.contains(listener)) {
-            return;
-        }
         genericListeners.add(listener);
     }
 
     public void addListener(IEventConsumerDelegate<T> listener) {
-        if (listeners.contains(listener)) {
-            return;
-        }
         listeners.add(listener);
     }
+
+    public void removeGenericListener(IEventConsumerDelegate<HasMetadata> listener) {
+        genericListeners.remove(listener);
+    }
+
+    public void removeListener(IEventConsumerDelegate<T> listener) {
+        listeners.remove(listener);
+    }
 }
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.events;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+/*
+ * Filter on modification events. An event the filter deems a no-op is dropped before it reaches any listener.
+ */
+@FunctionalInterface
+public interface IEventFilter<T extends HasMetadata> {
+
+    boolean isNoop(T pre, T cur);
+
+}
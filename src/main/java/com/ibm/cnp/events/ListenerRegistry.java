@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.events;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import lombok.var;
+import org.microbean.kubernetes.controller.AbstractEvent;
+
+import java.util.Arrays;
+
+/*
+ * Copy-on-write set of event listeners. Listeners can be added and removed at any time; an event is delivered to the
+ * listeners registered when its dispatch starts. Dispatching iterates over a plain array and does not allocate.
+ */
+public class ListenerRegistry<T extends HasMetadata> implements IEventConsumerDelegate<T> {
+
+    private volatile IEventConsumerDelegate<T>[] listeners;
+
+    @SuppressWarnings("unchecked")
+    public ListenerRegistry() {
+        this.listeners = new IEventConsumerDelegate[0];
+    }
+
+    public synchronized boolean add(IEventConsumerDelegate<T> listener) {
+        var current = listeners;
+        for (var l : current) {
+            if (l.equals(listener)) {
+                return false;
+            }
+        }
+        var next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+        return true;
+    }
+
+    public synchronized boolean remove(IEventConsumerDelegate<T> listener) {
+        var current = listeners;
+        for (int i = 0; i < current.length; i += 1) {
+            if (current[i].equals(listener)) {
+                var next = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return listeners.length;
+    }
+
+    @Override
+    public void onAddition(AbstractEvent<? extends T> event) {
+        for (var l : listeners) {
+            l.onAddition(event);
+        }
+    }
+
+    @Override
+    public void onModification(AbstractEvent<? extends T> event) {
+        for (var l : listeners) {
+            l.onModification(event);
+        }
+    }
+
+    @Override
+    public void onDeletion(AbstractEvent<? extends T> event) {
+        for (var l : listeners) {
+            l.onDeletion(event);
+        }
+    }
+
+}
@@ -15,14 +15,19 @@
  */
 package com.ibm.cnp.samples;
 
+import com.ibm.cnp.events.EventFilters;
+import com.ibm.cnp.samples.job.EJobState;
 import com.ibm.cnp.samples.job.JobConductor;
 import com.ibm.cnp.samples.job.JobController;
 import com.ibm.cnp.samples.job.JobCoordinator;
+import com.ibm.cnp.samples.job.JobExpectations;
 import com.ibm.cnp.samples.job.JobFactory;
 import com.ibm.cnp.samples.job.JobStore;
 import com.ibm.cnp.samples.pod.PodController;
 import com.ibm.cnp.samples.pod.PodFactory;
 import com.ibm.cnp.samples.pod.PodStore;
+import com.ibm.cnp.utils.KeyedExecutor;
+import com.ibm.cnp.utils.RateLimiter;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import lombok.var;
@@ -32,11 +37,16 @@ import org.apache.log4j.Logger;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_APP_LABEL_KEY;
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_APP_LABEL_VALUE;
+
 public class Main {
 
     private static final Lock lock = new ReentrantLock();
@@ -73,6 +83,25 @@ public class Main {
              */
             var ns = Optional.ofNullable(System.getenv("POD_NAMESPACE")).orElse("default");
             var logLevel = Optional.ofNullable(System.getenv("LOG_LEVEL")).orElse("DEBUG");
+            var lanes = Integer.parseInt(Optional.ofNullable(System.getenv("DISPATCH_LANES")).orElse("0"));
+            var workers = Optional.ofNullable(System.getenv("CONDUCTOR_WORKERS"))
+                                  .map(Integer::parseInt)
+                                  .orElse(Runtime.getRuntime().availableProcessors());
+            var capacity = Optional.ofNullable(System.getenv("CONDUCTOR_CAPACITY"))
+                                   .map(Integer::parseInt)
+                                   .orElse(Integer.MAX_VALUE);
+            var podCreationTimeout = Long.parseLong(
+                    Optional.ofNullable(System.getenv("POD_CREATION_TIMEOUT")).orElse("600"));
+            var recheckPeriod = Long.parseLong(Optional.ofNullable(System.getenv("RECHECK_PERIOD")).orElse("60"));
+            var podWorkers = Optional.ofNullable(System.getenv("POD_WORKERS"))
+                                     .map(Integer::parseInt)
+                                     .orElse(PodFactory.DEFAULT_PARALLELISM);
+            var podQps = Optional.ofNullable(System.getenv("POD_QPS"))
+                                 .map(Double::parseDouble)
+                                 .orElse(PodFactory.DEFAULT_QPS);
+            var podBurst = Optional.ofNullable(System.getenv("POD_BURST"))
+                                   .map(Integer::parseInt)
+                                   .orElse(PodFactory.DEFAULT_BURST);
             /*
              * Grab a new Kube client.
              */
@@ -88,15 +117,20 @@ public class Main {
             /*
              * Create the pod controller.
              */
-            var podStore = new PodStore();
-            var podFactory = new PodFactory(client, podStore);
-            var podController = new PodController(client, podStore, ns);
+            var podStore = new PodStore(true);
+            var podFactory = new PodFactory(client, podWorkers, new RateLimiter(podQps, podBurst));
+            var podController = new PodController(client, podStore, ns,
+                                                  Collections.singletonMap(CNP_APP_LABEL_KEY, CNP_APP_LABEL_VALUE),
+                                                  Collections.emptyMap());
             /*
              * Create the job controller.
              */
             var jobStore = new JobStore();
             var jobFactory = new JobFactory(client);
-            var jobController = new JobController(client, jobStore, jobFactory, podStore, podFactory, ns);
+            var jobExpectations = new JobExpectations();
+            podController.addListener(jobExpectations);
+            var jobController = new JobController(client, jobStore, jobFactory, podStore, podFactory, jobExpectations,
+                                                  ns);
             /*
              * Create the job coordinator.
              */
@@ -105,9 +139,23 @@ public class Main {
             /*
              * Create the job conductor.
              */
-            var jobConductor = new JobConductor(jobStore, jobCoordinator, podStore);
+            var jobConductor = new JobConductor(jobStore, jobCoordinator, workers, capacity);
+            jobConductor.setDeadline(EJobState.POD_CREATION, podCreationTimeout, TimeUnit.SECONDS);
+            jobConductor.setRecheckPeriod(recheckPeriod, TimeUnit.SECONDS);
             jobController.addGenericListener(jobConductor);
             podController.addGenericListener(jobConductor);
+            /*
+             * Drop the no-op modifications: resyncs for pods, metadata or status only changes for jobs.
+             */
+            podController.addFilter(EventFilters.sameResourceVersion());
+            jobController.addFilter(EventFilters.generationUnchanged());
+            /*
+             * Dispatch the controller events in parallel, if requested.
+             */
+            var podDispatcher = lanes > 0 ? new KeyedExecutor("pod-dispatch", lanes, 1024) : null;
+            var jobDispatcher = lanes > 0 ? new KeyedExecutor("job-dispatch", lanes, 1024) : null;
+            podController.setDispatcher(podDispatcher);
+            jobController.setDispatcher(jobDispatcher);
             /*
              * Start the Job FSM and the controllers
              */
@@ -123,6 +171,11 @@ public class Main {
             jobConductor.close();
             jobController.close();
             podController.close();
+            podFactory.close();
+            if (lanes > 0) {
+                jobDispatcher.close();
+                podDispatcher.close();
+            }
         } catch (IOException | KubernetesClientException | InterruptedException e) {
             e.printStackTrace();
         }
@@ -15,8 +15,10 @@
  */
 package com.ibm.cnp.samples.job;
 
-enum EJobState {
+public enum EJobState {
     UNDEFINED,
     POD_CREATION,
-    READY;
+    READY,
+    FAILED,
+    TIMED_OUT;
 }
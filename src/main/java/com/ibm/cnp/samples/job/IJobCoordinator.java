@@ -17,8 +17,12 @@ package com.ibm.cnp.samples.job;
 
 import com.ibm.cnp.events.IEventConsumerDelegate;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface IJobCoordinator extends IEventConsumerDelegate<Job> {
 
     void updateState(Job job, EJobState state);
 
+    CompletableFuture<JobCommandStatus> updateStateAsync(Job job, EJobState state);
+
 }
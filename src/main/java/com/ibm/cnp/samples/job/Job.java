@@ -15,12 +15,32 @@
  */
 package com.ibm.cnp.samples.job;
 
+import com.ibm.cnp.utils.ObjectUtils;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.client.CustomResource;
 import lombok.Getter;
 import lombok.Setter;
 
 public class Job extends CustomResource {
 
+    /*
+     * Copy jobs with their copy constructor rather than through JSON. A job exists before it is copied, so the copier is
+     * registered by then.
+     */
+    static {
+        ObjectUtils.registerCopier(Job.class, Job::new);
+    }
+
     @Getter @Setter private JobSpec spec;
 
+    public Job() {
+    }
+
+    public Job(Job job) {
+        setApiVersion(job.getApiVersion());
+        setKind(job.getKind());
+        setMetadata(job.getMetadata() == null ? null : new ObjectMetaBuilder(job.getMetadata()).build());
+        this.spec = job.spec == null ? null : new JobSpec(job.spec);
+    }
+
 }
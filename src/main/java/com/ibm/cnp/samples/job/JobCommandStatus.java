@@ -22,6 +22,7 @@ enum JobCommandStatus implements ICommandStatus {
     JobNotFound,
     NoChangeNeeded,
     Success,
+    TimedOut,
     Unknown;
 
     @Override
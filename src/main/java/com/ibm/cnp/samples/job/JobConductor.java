@@ -15,9 +15,12 @@
  */
 package com.ibm.cnp.samples.job;
 
+import com.ibm.cnp.conductor.Conductor;
+import com.ibm.cnp.conductor.ConductorMetrics;
+import com.ibm.cnp.conductor.ETrigger;
+import com.ibm.cnp.conductor.IAction;
+import com.ibm.cnp.conductor.TransitionTable;
 import com.ibm.cnp.events.IEventConsumerDelegate;
-import com.ibm.cnp.samples.pod.PodStore;
-import com.ibm.cnp.utils.OperationInProgressException;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.Pod;
 import lombok.var;
@@ -25,189 +28,144 @@ import org.microbean.kubernetes.controller.AbstractEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Function;
-import java.util.function.Supplier;
 
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_JOB_LABEL_KEY;
 
-public class JobConductor implements Runnable, IEventConsumerDelegate<HasMetadata> {
+public class JobConductor implements IEventConsumerDelegate<HasMetadata> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JobConductor.class);
 
-    private final JobStore jobStore;
     private final IJobCoordinator jobCoordinator;
-    private final PodStore podStore;
+    private final ConcurrentMap<String, PodCounters> podCounters;
+    private final Conductor<EJobState, Job> conductor;
 
-    private final AtomicBoolean keepRunning;
-    private final HashSet<String> registry;
-    private final LinkedBlockingQueue<AbstractEvent<? extends HasMetadata>> eventQueue;
+    public JobConductor(JobStore jobStore, IJobCoordinator jobCoordinator) {
+        this(jobStore, jobCoordinator, 1);
+    }
 
-    private final Thread thread;
+    public JobConductor(JobStore jobStore, IJobCoordinator jobCoordinator, int workers) {
+        this(jobStore, jobCoordinator, workers, Integer.MAX_VALUE);
+    }
 
-    public JobConductor(JobStore jobStore, IJobCoordinator jobCoordinator, PodStore podStore) {
+    public JobConductor(JobStore jobStore, IJobCoordinator jobCoordinator, int workers, int capacity) {
         /*
-         * Save the stores and factories.
+         * Save the coordinator.
          */
-        this.jobStore = jobStore;
         this.jobCoordinator = jobCoordinator;
-        this.podStore = podStore;
         /*
          * Initialize the local state.
          */
-        this.keepRunning = new AtomicBoolean(true);
-        this.registry = new HashSet<>();
-        this.eventQueue = new LinkedBlockingQueue<>();
-        this.thread = new Thread(this);
-    }
-
-    private Optional<Job> getJobForResource(HasMetadata resource) {
-        /*
-         * If the resource is a job, return self.
-         */
-        if (resource instanceof Job) {
-            return Optional.of((Job)resource);
-        }
-        /*
-         * Grab the job name and check if it exists.
-         */
-        var name = resource.getMetadata().getLabels().get(CNP_JOB_LABEL_KEY);
-        if (!registry.contains(name)) {
-            LOGGER.trace("Job {} not registered in the FSM", name);
-            return Optional.empty();
-        }
+        this.podCounters = new ConcurrentHashMap<>();
         /*
-         * Grab the job.
+         * Job State Machine. UNDEFINED has no transitions: the job controller moves the job to POD_CREATION upon
+         * addition. FAILED and TIMED_OUT are final.
          */
-        return jobStore.getJobWithName(name);
-    }
-
-    @Override
-    public void run() {
-        while (keepRunning.get()) {
-            try {
+        var table = new TransitionTable<EJobState, Job>(EJobState.class)
                 /*
-                 * Grab a resource and process the timeouts.
+                 * Give up on the pods that never showed up.
                  */
-                var event = eventQueue.poll(5, TimeUnit.SECONDS);
-                if (event == null) {
-                    continue;
-                }
+                .add(EJobState.POD_CREATION, ETrigger.DEADLINE, null, to(EJobState.TIMED_OUT))
+                .add(EJobState.POD_CREATION, (k, j) -> getFailedPodCount(k) > 0, to(EJobState.FAILED))
+                .add(EJobState.POD_CREATION, (k, j) -> j.getSpec().getDesired() == getPodCount(k),
+                     to(EJobState.READY))
                 /*
-                 * Process the event.
+                 * Fail the job if some of its pods failed, not counting the pods being deleted. Otherwise, go back to
+                 * POD_CREATION if the job was scaled or if some of its pods were deleted.
                  */
-                handle(event);
-            } catch (InterruptedException | OperationInProgressException ignored) {
-            }
-        }
+                .add(EJobState.READY, (k, j) -> getFailedPodCount(k) > 0, to(EJobState.FAILED))
+                .add(EJobState.READY, (k, j) -> j.getSpec().getDesired() != getPodCount(k),
+                     to(EJobState.POD_CREATION));
+        this.conductor = new Conductor<>("job-conductor", workers, capacity, table, jobStore::getJobWithKey,
+                                         j -> j.getSpec().getState());
     }
 
-    public void start() {
-        this.thread.start();
-    }
-
-    public void close() throws InterruptedException {
-        this.keepRunning.set(false);
-        this.thread.join();
+    /*
+     * Bound the time a job can spend in a state. Must be called before the conductor is started.
+     */
+    public void setDeadline(EJobState state, long timeout, TimeUnit unit) {
+        conductor.setDeadline(state, timeout, unit);
     }
 
     /*
-     * Handle the event.
+     * Re-evaluate the active jobs periodically, in case an event was missed. Must be called before the conductor is
+     * started.
      */
+    public void setRecheckPeriod(long period, TimeUnit unit) {
+        conductor.setRecheckPeriod(period, unit);
+    }
 
-    private void handle(AbstractEvent<? extends HasMetadata> event) throws OperationInProgressException {
-        var cur = event.getResource();
+    public ConductorMetrics getMetrics() {
+        return conductor.getMetrics();
+    }
+
+    public int getQueueSize() {
+        return conductor.getQueueSize();
+    }
+
+    public int getQueueHighWaterMark() {
+        return conductor.getQueueHighWaterMark();
+    }
+
+    private Optional<String> getJobKeyForResource(HasMetadata resource) {
+        var meta = resource.getMetadata();
         /*
-         * Grab the job.
+         * If the resource is a job, return its key.
          */
-        var job = getJobForResource(cur);
-        if (!job.isPresent()) {
-            return;
+        if (resource instanceof Job) {
+            return Optional.of(JobStore.getKey(meta.getNamespace(), meta.getName()));
         }
         /*
-         * Check the event type.
+         * Otherwise, build the key from the job label of the resource.
          */
-        switch(event.getType()) {
-            case ADDITION:
-                if (cur instanceof Job) {
-                    this.registry.add(((Job) cur).getMetadata().getName());
-                } else if (cur instanceof Pod) {
-                    process(job.get(), cur);
-                }
-            break;
-            case MODIFICATION:
-                var pre = event.getPriorResource();
-                if (cur instanceof Job) {
-                    if (((Job) cur).getSpec().getDesired() != ((Job)pre).getSpec().getDesired()) {
-                        this.jobCoordinator.updateState(job.get(), EJobState.POD_CREATION);
-                    }
-                    process(job.get(), cur);
-                }
-                break;
-            case DELETION:
-                if (cur instanceof Job) {
-                    this.registry.remove(((Job) cur).getMetadata().getName());
-                } else if (cur instanceof Pod) {
-                    this.jobCoordinator.updateState(job.get(), EJobState.POD_CREATION);
-                    process(job.get(), cur);
-                }
-                break;
-        }
+        return Optional.ofNullable(meta.getLabels())
+                       .map(l -> l.get(CNP_JOB_LABEL_KEY))
+                       .map(name -> JobStore.getKey(meta.getNamespace(), name));
+    }
+
+    private int getPodCount(String key) {
+        var counters = podCounters.get(key);
+        return counters == null ? 0 : counters.getTotal();
+    }
+
+    private int getFailedPodCount(String key) {
+        var counters = podCounters.get(key);
+        return counters == null ? 0 : counters.getFailed();
     }
 
     /*
-     * State operation methods.
+     * Wake the job of a resource up if the condition it waits for, if any, holds.
      */
+    private void signal(HasMetadata resource) {
+        getJobKeyForResource(resource).ifPresent(conductor::signal);
+    }
 
-    private <T> void waitForCondition(Job job, Function<Job, T> cur, Supplier<T> tgt)
-            throws OperationInProgressException {
-        var value = cur.apply(job);
-        var target = tgt.get();
-        /*
-         * Check the resource constraints.
-         */
-        if (!value.equals(target)) {
-            throw new OperationInProgressException();
-        }
+    public void start() {
+        conductor.start();
+    }
+
+    public void close() throws InterruptedException {
+        conductor.close();
     }
 
     /*
-     * Job State Machine.
+     * State operation methods.
      */
 
-    private void process(Job job, HasMetadata rsrc) throws OperationInProgressException {
-        /*
-         * Check if the job is in the right state.
-         */
-        if (job.getSpec().getState() == EJobState.READY) {
-            return;
-        }
-        /*
-         * Process the current state.
-         */
-        switch (job.getSpec().getState()) {
-            case UNDEFINED:
-                if (!(rsrc instanceof Job)) {
-                    throw new OperationInProgressException();
-                }
-                var cur = (Job) rsrc;
-                waitForCondition(cur, j -> j.getSpec().getState(), () -> EJobState.POD_CREATION);
-                /*
-                 * NOTE the fall-through is intended.
-                 */
-            case POD_CREATION:
-                waitForCondition(job, j -> j.getSpec().getDesired(), podStore::size);
-                jobCoordinator.updateState(job, EJobState.READY);
-                /*
-                 * NOTE the fall-through is intended.
-                 */
-            case READY:
-                break;
-        }
+    private void updateState(String key, Job job, EJobState state) {
+        jobCoordinator.updateStateAsync(job, state).whenComplete((v, e) -> {
+            if (e != null) {
+                LOGGER.warn("Job {} not {}: {}", key, state, e.getMessage());
+                conductor.retry(key);
+            }
+        });
+    }
+
+    private IAction<Job> to(EJobState state) {
+        return (key, job) -> updateState(key, job, state);
     }
 
     /*
@@ -216,10 +174,18 @@ public class JobConductor implements Runnable, IEventConsumerDelegate<HasMetadat
 
     @Override
     public void onAddition(AbstractEvent<? extends HasMetadata> event) {
-        try {
-            eventQueue.put(event);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        var cur = event.getResource();
+        if (cur instanceof Job) {
+            getJobKeyForResource(cur).ifPresent(conductor::register);
+        } else if (cur instanceof Pod) {
+            getJobKeyForResource(cur).ifPresent(key -> {
+                podCounters.compute(key, (k, c) -> {
+                    var counters = c == null ? new PodCounters() : c;
+                    counters.add((Pod) cur);
+                    return counters;
+                });
+                signal(cur);
+            });
         }
     }
 
@@ -229,10 +195,16 @@ public class JobConductor implements Runnable, IEventConsumerDelegate<HasMetadat
 
     @Override
     public void onModification(AbstractEvent<? extends HasMetadata> event) {
-        try {
-            eventQueue.put(event);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        var cur = event.getResource();
+        if (cur instanceof Job) {
+            getJobKeyForResource(cur).ifPresent(conductor::enqueue);
+        } else if (cur instanceof Pod) {
+            var pre = (Pod) event.getPriorResource();
+            getJobKeyForResource(cur).map(podCounters::get).ifPresent(c -> {
+                if (c.update(pre, (Pod) cur)) {
+                    signal(cur);
+                }
+            });
         }
     }
 
@@ -242,10 +214,20 @@ public class JobConductor implements Runnable, IEventConsumerDelegate<HasMetadat
 
     @Override
     public void onDeletion(AbstractEvent<? extends HasMetadata> event) {
-        try {
-            eventQueue.put(event);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        var cur = event.getResource();
+        if (cur instanceof Job) {
+            getJobKeyForResource(cur).ifPresent(conductor::unregister);
+        } else if (cur instanceof Pod) {
+            getJobKeyForResource(cur).ifPresent(key -> {
+                /*
+                 * Drop the counters of deleted jobs once their last pod is gone.
+                 */
+                podCounters.computeIfPresent(key, (k, c) -> {
+                    c.remove((Pod) cur);
+                    return c.getTotal() > 0 || conductor.isRegistered(k) ? c : null;
+                });
+                signal(cur);
+            });
         }
     }
 
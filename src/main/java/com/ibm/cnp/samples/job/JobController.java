@@ -27,7 +27,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.stream.IntStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class JobController extends GenericEventQueueConsumer<Job> {
 
@@ -36,17 +38,17 @@ public class JobController extends GenericEventQueueConsumer<Job> {
     private final JobFactory jobFactory;
     private final PodStore podStore;
     private final PodFactory podFactory;
+    private final JobExpectations expectations;
     private final Controller<Job> controller;
 
     public JobController(KubernetesClient client, JobStore jobStore, JobFactory jobFactory, PodStore podStore,
-                         PodFactory podFactory, String ns) {
+                         PodFactory podFactory, JobExpectations expectations, String ns) {
         super(jobStore);
         this.jobFactory = jobFactory;
         this.podStore = podStore;
         this.podFactory = podFactory;
-        this.controller = new Controller<>(
-                client.customResources(jobFactory.getCustomResourceDefinition(), Job.class, JobList.class,
-                                       DoneableJob.class).inNamespace(ns), this);
+        this.expectations = expectations;
+        this.controller = new Controller<>(jobFactory.getJobs().inNamespace(ns), this);
     }
 
     @Override
@@ -74,27 +76,69 @@ public class JobController extends GenericEventQueueConsumer<Job> {
                 LOGGER.error("Invalid state transition to UNDEFINED");
                 break;
             case POD_CREATION:
-                var pods = this.podStore.getPodsForJob(cur).toArray();
-                int delta = cur.getSpec().getDesired() - pods.length;
-                if (delta < 0) {
-                    LOGGER.debug("Delete {} pod(s)", -delta);
-                    for (int i = pods.length + delta; i < pods.length; i += 1) {
-                        podFactory.delete((Pod) pods[i]);
+                /*
+                 * Count the pods the cache has, minus the ones going away, plus the ones created but not in the cache
+                 * yet.
+                 */
+                var key = JobStore.getKey(cur.getMetadata().getNamespace(), cur.getMetadata().getName());
+                var deleting = expectations.getPendingDeletions(key);
+                var cached = podStore.getPodsForJob(cur);
+                var cachedNames = new HashSet<String>(getNames(cached));
+                var pods = cached.stream()
+                                 .filter(p -> p.getMetadata().getDeletionTimestamp() == null)
+                                 .filter(p -> !deleting.contains(p.getMetadata().getName()))
+                                 .collect(Collectors.toList());
+                var creating = expectations.getPendingCreations(key)
+                                           .stream()
+                                           .filter(n -> !cachedNames.contains(n))
+                                           .count();
+                int delta = cur.getSpec().getDesired() - pods.size() - (int) creating;
+                if (delta < 0 && cur.getSpec().getDesired() == 0) {
+                    LOGGER.debug("Delete all {} pod(s)", pods.size());
+                    var names = getNames(pods);
+                    expectations.expectDeletions(key, names);
+                    if (!podFactory.deleteAllForJob(cur)) {
+                        expectations.lowerDeletions(key, names);
                     }
+                } else if (delta < 0) {
+                    LOGGER.debug("Delete {} pod(s)", -delta);
+                    var victims = pods.subList(pods.size() + delta, pods.size());
+                    var names = new HashSet<String>(getNames(victims));
+                    expectations.expectDeletions(key, names);
+                    names.removeAll(podFactory.deleteAll(victims));
+                    expectations.lowerDeletions(key, names);
                 } else if (delta > 0) {
                     LOGGER.debug("Add {} pod(s)", delta);
-                    IntStream.range(0, delta).forEach(i -> podFactory.add(cur));
+                    expectations.expectCreations(key, podFactory.addAll(cur, delta));
                 }
                 break;
             case READY:
                 LOGGER.debug("Job is READY");
                 break;
+            case FAILED:
+                LOGGER.warn("Job {} FAILED", cur.getMetadata().getName());
+                break;
+            case TIMED_OUT:
+                LOGGER.warn("Job {} TIMED_OUT", cur.getMetadata().getName());
+                break;
         }
     }
 
     @Override
     public void onDeletion(AbstractEvent<? extends Job> event) {
-        LOGGER.info("DEL - {}", event.getResource().getMetadata().getName());
+        var job = event.getResource();
+        LOGGER.info("DEL - {}", job.getMetadata().getName());
+        expectations.forget(JobStore.getKey(job.getMetadata().getNamespace(), job.getMetadata().getName()));
+        /*
+         * Tear down the pods of the job, if any are left.
+         */
+        if (podStore.countPodsForJob(job) > 0) {
+            podFactory.deleteAllForJob(job);
+        }
+    }
+
+    private static List<String> getNames(List<Pod> pods) {
+        return pods.stream().map(p -> p.getMetadata().getName()).collect(Collectors.toList());
     }
 
     public void start() throws IOException {
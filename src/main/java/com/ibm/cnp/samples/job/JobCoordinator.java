@@ -21,6 +21,8 @@ import lombok.var;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implements IJobCoordinator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JobCoordinator.class);
@@ -35,11 +37,13 @@ public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implement
 
     private class UpdateStateCommand extends Command<Job, JobCommandStatus> {
 
+        private final String jobNamespace;
         private final String jobName;
-        private final EJobState state;
+        private EJobState state;
 
         UpdateStateCommand(Job job, EJobState state) {
             super(JobCommandStatus.Unknown);
+            this.jobNamespace = job.getMetadata().getNamespace();
             this.jobName = job.getMetadata().getName();
             this.state = state;
         }
@@ -49,7 +53,7 @@ public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implement
             /*
              * Find the job.
              */
-            var job = jobStore.getJobWithName(jobName);
+            var job = jobStore.getJobWithName(jobNamespace, jobName);
             if (!job.isPresent()) {
                 LOGGER.debug("Job {} not found", jobName);
                 set(JobCommandStatus.JobNotFound);
@@ -63,22 +67,57 @@ public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implement
                 return Action.Remove;
             }
             /*
-             * Update the content ID and increase the launch count.
+             * Patch the state, and wait for the cache to observe it.
              */
-            jobFactory.update(job.get(), state);
+            if (!jobFactory.update(job.get(), state)) {
+                set(JobCommandStatus.Failure);
+                return Action.Remove;
+            }
             return Action.Wait;
         }
 
+        @Override
+        protected boolean merge(Command<Job, JobCommandStatus> next) {
+            /*
+             * Only the last target state matters.
+             */
+            if (!(next instanceof UpdateStateCommand)) {
+                return false;
+            }
+            this.state = ((UpdateStateCommand) next).state;
+            return true;
+        }
+
         @Override
         public boolean check(Job pre, Job cur) {
-            var result = cur.getSpec().getState().equals(this.state);
-            set(result ? JobCommandStatus.Success : JobCommandStatus.Failure);
-            return result;
+            /*
+             * Only a match completes the command. A mismatch keeps it waiting, and the timeout decides when to give up.
+             */
+            if (!cur.getSpec().getState().equals(this.state)) {
+                return false;
+            }
+            set(JobCommandStatus.Success);
+            return true;
+        }
+
+        @Override
+        public JobCommandStatus timedOut() {
+            return JobCommandStatus.TimedOut;
+        }
+
+        @Override
+        public JobCommandStatus failed() {
+            return JobCommandStatus.Failure;
+        }
+
+        @Override
+        public JobCommandStatus notFound() {
+            return JobCommandStatus.JobNotFound;
         }
 
     }
 
-    private void processStatus(JobCommandStatus status) {
+    private JobCommandStatus processStatus(JobCommandStatus status) {
         switch (status) {
             case Failure:
                 throw new IllegalArgumentException("Operation failed");
@@ -87,9 +126,12 @@ public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implement
             case NoChangeNeeded:
             case Success:
                 break;
+            case TimedOut:
+                throw new IllegalArgumentException("Operation timed out");
             case Unknown:
                 throw new IllegalArgumentException("Invalid state");
         }
+        return status;
     }
 
     @Override
@@ -99,5 +141,10 @@ public class JobCoordinator extends Coordinator<Job, JobCommandStatus> implement
         processStatus(cmd.get());
     }
 
+    @Override
+    public CompletableFuture<JobCommandStatus> updateStateAsync(Job job, EJobState state) {
+        return apply(job, new UpdateStateCommand(job, state)).thenApply(this::processStatus);
+    }
+
 }
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.job;
+
+import com.ibm.cnp.events.IEventConsumerDelegate;
+import com.ibm.cnp.sync.Expectations;
+import io.fabric8.kubernetes.api.model.Pod;
+import lombok.var;
+import org.microbean.kubernetes.controller.AbstractEvent;
+
+import java.util.Optional;
+
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_JOB_LABEL_KEY;
+
+/*
+ * Pod expectations of the jobs, keyed by job. Register it as a pod listener so that it observes the pods the job
+ * controller creates and deletes.
+ */
+public class JobExpectations extends Expectations<String> implements IEventConsumerDelegate<Pod> {
+
+    private static Optional<String> getJobKey(Pod pod) {
+        var meta = pod.getMetadata();
+        return Optional.ofNullable(meta.getLabels())
+                       .map(l -> l.get(CNP_JOB_LABEL_KEY))
+                       .map(name -> JobStore.getKey(meta.getNamespace(), name));
+    }
+
+    @Override
+    public void onAddition(AbstractEvent<? extends Pod> event) {
+        var cur = event.getResource();
+        getJobKey(cur).ifPresent(key -> creationObserved(key, cur.getMetadata().getName()));
+    }
+
+    @Override
+    public void onModification(AbstractEvent<? extends Pod> event) {
+        /*
+         * A pod is as good as deleted once it has a deletion timestamp.
+         */
+        var cur = event.getResource();
+        if (cur.getMetadata().getDeletionTimestamp() != null) {
+            getJobKey(cur).ifPresent(key -> deletionObserved(key, cur.getMetadata().getName()));
+        }
+    }
+
+    @Override
+    public void onDeletion(AbstractEvent<? extends Pod> event) {
+        var cur = event.getResource();
+        getJobKey(cur).ifPresent(key -> deletionObserved(key, cur.getMetadata().getName()));
+    }
+
+}
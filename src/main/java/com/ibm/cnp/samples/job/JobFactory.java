@@ -17,13 +17,26 @@ package com.ibm.cnp.samples.job;
 
 import com.ibm.cnp.utils.ObjectUtils;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
+import io.fabric8.kubernetes.client.HttpClientAware;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.utils.URLUtils;
 import io.fabric8.kubernetes.internal.KubernetesDeserializer;
+import lombok.var;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_API_VERSION;
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_CRD_GROUP;
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_CRD_VERSION;
 
 public class JobFactory {
 
@@ -32,8 +45,12 @@ public class JobFactory {
     private static final String CNP_JOB_PLURAL_NAME = "cnpjobs";
     public static final String CNP_JOB_CRD_NAME = CNP_JOB_PLURAL_NAME + "." + CNP_CRD_GROUP;
 
+    private static final MediaType MERGE_PATCH = MediaType.parse("application/merge-patch+json");
+
     private final KubernetesClient client;
+    private final OkHttpClient httpClient;
     private final CustomResourceDefinition crd;
+    private final MixedOperation<Job, JobList, DoneableJob, Resource<Job, DoneableJob>> jobs;
 
     public JobFactory(KubernetesClient client) {
         /*
@@ -56,30 +73,54 @@ public class JobFactory {
                          .filter(e -> e.getMetadata().getName().equals(CNP_JOB_CRD_NAME))
                          .findFirst()
                          .orElseThrow(RuntimeException::new);
+        /*
+         * Build the typed client once and reuse it.
+         */
+        this.jobs = client.customResources(crd, Job.class, JobList.class, DoneableJob.class);
+        /*
+         * Grab the underlying HTTP client to send merge patches.
+         */
+        this.httpClient = ((HttpClientAware) client).getHttpClient();
     }
 
     public CustomResourceDefinition getCustomResourceDefinition() {
         return crd;
     }
 
-    public void update(Job job, EJobState state) {
+    public MixedOperation<Job, JobList, DoneableJob, Resource<Job, DoneableJob>> getJobs() {
+        return jobs;
+    }
+
+    /*
+     * Patch the state of the job. Return false if the patch was not applied.
+     */
+    public boolean update(Job job, EJobState state) {
+        var ns = job.getMetadata().getNamespace();
+        var name = job.getMetadata().getName();
+        /*
+         * Build a merge patch that only touches the state.
+         */
+        var patch = ObjectUtils.getObjectMapper().createObjectNode();
+        patch.putObject("spec").put("state", state.name());
         /*
-         * Duplicate the Job.
+         * Send the patch. No resource version is sent, so the patch cannot conflict.
          */
-        ObjectUtils.deepCopy(job, Job.class).ifPresent(target -> {
-            /*
-             * Update the width.
-             */
-            target.getSpec().setState(state);
-            /*
-             * Patch the Job.
-             */
-            LOGGER.debug("UPD - {}", job.getMetadata().getName());
-            client.customResources(crd, Job.class, JobList.class, DoneableJob.class)
-                  .inNamespace(job.getMetadata().getNamespace())
-                  .withName(job.getMetadata().getName())
-                  .patch(target);
-        });
+        var url = URLUtils.join(client.getMasterUrl().toString(), "apis", CNP_CRD_GROUP, CNP_CRD_VERSION,
+                                "namespaces", ns, CNP_JOB_PLURAL_NAME, name);
+        var request = new Request.Builder().url(url)
+                                           .patch(RequestBody.create(MERGE_PATCH, patch.toString()))
+                                           .build();
+        LOGGER.debug("UPD - {}", name);
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Cannot patch job {}: {}", name, response.code());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Cannot patch job {}: {}", name, e.getMessage());
+            return false;
+        }
     }
 
 }
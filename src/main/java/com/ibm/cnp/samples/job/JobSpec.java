@@ -40,6 +40,6 @@ public class JobSpec implements KubernetesResource {
         this.state = spec.state;
         this.desired = spec.desired;
         this.image = spec.image;
-        this.args = new ArrayList<>(spec.args);
+        this.args = spec.args == null ? null : new ArrayList<>(spec.args);
     }
 }
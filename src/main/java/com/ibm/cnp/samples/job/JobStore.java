@@ -15,13 +15,30 @@
  */
 package com.ibm.cnp.samples.job;
 
+import com.ibm.cnp.cache.IndexedStore;
+
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
-public class JobStore extends ConcurrentHashMap<Object, Job> {
+public class JobStore extends IndexedStore<Job> {
+
+    private static final String NAME_INDEX = "name";
+    private static final String UID_INDEX = "uid";
+
+    public JobStore() {
+        addIndex(NAME_INDEX, byNamespacedName());
+        addIndex(UID_INDEX, byUid());
+    }
+
+    public Optional<Job> getJobWithKey(String key) {
+        return getFirstByIndex(NAME_INDEX, key);
+    }
+
+    public Optional<Job> getJobWithName(String namespace, String name) {
+        return getJobWithKey(getKey(namespace, name));
+    }
 
-    public Optional<Job> getJobWithName(String name) {
-        return values().stream().filter(j -> j.getMetadata().getName().equals(name)).findAny();
+    public Optional<Job> getJobWithUid(String uid) {
+        return getFirstByIndex(UID_INDEX, uid);
     }
 
 }
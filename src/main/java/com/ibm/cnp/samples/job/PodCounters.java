@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.job;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import lombok.var;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Pod counters of a job, by phase. Pods without a status yet are counted as pending. Pods with a deletion timestamp
+ * are counted as terminating whatever their phase, so that a pod killed by a scale-down is not counted as failed.
+ */
+class PodCounters {
+
+    private final AtomicInteger total;
+    private final AtomicInteger pending;
+    private final AtomicInteger running;
+    private final AtomicInteger succeeded;
+    private final AtomicInteger failed;
+    private final AtomicInteger terminating;
+
+    PodCounters() {
+        this.total = new AtomicInteger(0);
+        this.pending = new AtomicInteger(0);
+        this.running = new AtomicInteger(0);
+        this.succeeded = new AtomicInteger(0);
+        this.failed = new AtomicInteger(0);
+        this.terminating = new AtomicInteger(0);
+    }
+
+    private static String getPhase(Pod pod) {
+        return pod.getStatus() == null || pod.getStatus().getPhase() == null ? "Pending" : pod.getStatus().getPhase();
+    }
+
+    private AtomicInteger getCounter(Pod pod) {
+        if (pod.getMetadata().getDeletionTimestamp() != null) {
+            return terminating;
+        }
+        switch (getPhase(pod)) {
+            case "Pending":
+                return pending;
+            case "Running":
+                return running;
+            case "Succeeded":
+                return succeeded;
+            case "Failed":
+                return failed;
+            default:
+                return null;
+        }
+    }
+
+    void add(Pod pod) {
+        total.incrementAndGet();
+        var counter = getCounter(pod);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    void remove(Pod pod) {
+        total.decrementAndGet();
+        var counter = getCounter(pod);
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    /*
+     * Move the pod to the counter of its new phase, or to the terminating counter. Return true if the counter changed.
+     */
+    boolean update(Pod pre, Pod cur) {
+        var preCounter = getCounter(pre);
+        var curCounter = getCounter(cur);
+        if (preCounter == curCounter) {
+            return false;
+        }
+        if (preCounter != null) {
+            preCounter.decrementAndGet();
+        }
+        if (curCounter != null) {
+            curCounter.incrementAndGet();
+        }
+        return true;
+    }
+
+    int getTotal() {
+        return total.get();
+    }
+
+    int getPending() {
+        return pending.get();
+    }
+
+    int getRunning() {
+        return running.get();
+    }
+
+    int getSucceeded() {
+        return succeeded.get();
+    }
+
+    int getFailed() {
+        return failed.get();
+    }
+
+    int getTerminating() {
+        return terminating.get();
+    }
+
+}
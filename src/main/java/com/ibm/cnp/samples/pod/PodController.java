@@ -24,6 +24,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 public class PodController extends GenericEventQueueConsumer<Pod> {
 
@@ -32,8 +34,16 @@ public class PodController extends GenericEventQueueConsumer<Pod> {
     private final Controller<Pod> controller;
 
     public PodController(KubernetesClient client, PodStore podStore, String ns) {
+        this(client, podStore, ns, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /*
+     * Only watch and cache the pods that match the label and field selectors.
+     */
+    public PodController(KubernetesClient client, PodStore podStore, String ns, Map<String, String> labels,
+                         Map<String, String> fields) {
         super(podStore);
-        controller = new Controller<>(client.pods().inNamespace(ns), this);
+        controller = new Controller<>(client.pods().inNamespace(ns).withLabels(labels).withFields(fields), this);
     }
 
     @Override
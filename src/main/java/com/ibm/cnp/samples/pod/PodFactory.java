@@ -16,19 +16,34 @@
 package com.ibm.cnp.samples.pod;
 
 import com.ibm.cnp.samples.job.Job;
+import com.ibm.cnp.utils.RateLimiter;
+import com.ibm.cnp.utils.Threads;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.OwnerReference;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodSpec;
+import io.fabric8.kubernetes.client.HttpClientAware;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import lombok.var;
-import org.apache.commons.lang.RandomStringUtils;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_APP_LABEL_KEY;
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_APP_LABEL_VALUE;
@@ -40,32 +55,35 @@ public class PodFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PodFactory.class);
 
-    private final KubernetesClient client;
-    private final PodStore podStore;
+    private static final int HTTP_CONFLICT = 409;
+    private static final int MAX_NAME_CONFLICTS = 3;
+    private static final int SLOW_START_INITIAL_BATCH_SIZE = 1;
 
-    public PodFactory(KubernetesClient client, PodStore podStore) {
-        this.client = client;
-        this.podStore = podStore;
-    }
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final double DEFAULT_QPS = 20;
+    public static final int DEFAULT_BURST = 50;
 
-    private boolean isUnique(String name) {
-        return podStore.values().stream().noneMatch(pod -> pod.getMetadata().getName().equals(name));
-    }
+    private final KubernetesClient client;
+    private final RateLimiter limiter;
+    private final ExecutorService executor;
 
-    private String getUniquePodName(Job job) {
-        String podName;
-        do {
-            var suffix = RandomStringUtils.random(5, true, true).toLowerCase();
-            podName = job.getMetadata().getName() + "-" + suffix;
-        } while (!isUnique(podName));
-        return podName;
+    public PodFactory(KubernetesClient client) {
+        this(client, DEFAULT_PARALLELISM, new RateLimiter(DEFAULT_QPS, DEFAULT_BURST));
     }
 
-    public void add(Job job) {
+    public PodFactory(KubernetesClient client, int parallelism, RateLimiter limiter) {
+        this.client = client;
+        this.limiter = limiter;
         /*
-         * Allocate a unique pod name.
+         * Bound the number of pod operations in flight.
          */
-        var name = getUniquePodName(job);
+        this.executor = Executors.newFixedThreadPool(parallelism, Threads.factory("pod-factory", true));
+    }
+
+    /*
+     * Create a pod for the job. Return the name the API server allocated to it.
+     */
+    public String add(Job job) {
         /*
          * Create the spec.
          */
@@ -94,10 +112,10 @@ public class PodFactory {
             put(CNP_JOB_LABEL_KEY, job.getMetadata().getName());
         }};
         /*
-         * Build the pod metadata.
+         * Build the pod metadata. The API server allocates a unique name from the job name.
          */
         var meta = new ObjectMeta();
-        meta.setName(name);
+        meta.setGenerateName(job.getMetadata().getName() + "-");
         meta.setNamespace(job.getMetadata().getNamespace());
         meta.setOwnerReferences(Collections.singletonList(or));
         meta.setLabels(labels);
@@ -108,13 +126,118 @@ public class PodFactory {
         pod.setMetadata(meta);
         pod.setSpec(spec);
         /*
-         * Create the pod.
+         * Create the pod. Retry if the generated name is already taken.
          */
-        client.pods().inNamespace(job.getMetadata().getNamespace()).create(pod);
+        for (int i = 1; ; i += 1) {
+            try {
+                var created = client.pods().inNamespace(job.getMetadata().getNamespace()).create(pod);
+                return created.getMetadata().getName();
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HTTP_CONFLICT || i == MAX_NAME_CONFLICTS) {
+                    throw e;
+                }
+                LOGGER.debug("Pod name conflict for job {}, retrying", job.getMetadata().getName());
+            }
+        }
+    }
+
+    /*
+     * Create count pods for the job in batches of growing size, starting with one pod and doubling the batch size
+     * after each successful batch. A batch with a failure stops the creation, so a systematic error (quota, admission
+     * webhook, bad image spec) costs a handful of calls rather than count of them. Return the names of the pods
+     * created.
+     */
+    public List<String> addAll(Job job, int count) {
+        var created = new ArrayList<String>(count);
+        var batch = SLOW_START_INITIAL_BATCH_SIZE;
+        while (created.size() < count) {
+            var size = Math.min(batch, count - created.size());
+            var tasks = new ArrayList<Callable<String>>(size);
+            for (int i = 0; i < size; i += 1) {
+                tasks.add(() -> {
+                    limiter.acquire();
+                    return add(job);
+                });
+            }
+            var done = invokeAll(tasks);
+            created.addAll(done);
+            if (done.size() < size) {
+                LOGGER.warn("Created {} out of {} pod(s) for job {}", created.size(), count,
+                            job.getMetadata().getName());
+                break;
+            }
+            batch *= 2;
+        }
+        return created;
     }
 
     public void delete(Pod pod) {
         this.client.pods().delete(pod);
     }
 
+    /*
+     * Delete all the pods of the job with a single delete-collection call on the job label selector. The client's own
+     * delete() on a label selector lists the pods and deletes them one by one, so the call is made directly.
+     */
+    public boolean deleteAllForJob(Job job) {
+        var name = job.getMetadata().getName();
+        var url = HttpUrl.get(client.getMasterUrl().toString())
+                         .newBuilder()
+                         .addPathSegments("api/v1/namespaces")
+                         .addPathSegment(job.getMetadata().getNamespace())
+                         .addPathSegment("pods")
+                         .addQueryParameter("labelSelector", CNP_JOB_LABEL_KEY + "=" + name)
+                         .build();
+        var request = new Request.Builder().url(url).delete().build();
+        var httpClient = ((HttpClientAware) client).getHttpClient();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Cannot delete the pods of job {}: {}", name, response.code());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Cannot delete the pods of job {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     * Delete the pods concurrently. Return the names of the pods deleted.
+     */
+    public List<String> deleteAll(Collection<Pod> pods) {
+        var tasks = new ArrayList<Callable<String>>(pods.size());
+        for (var pod : pods) {
+            tasks.add(() -> {
+                limiter.acquire();
+                delete(pod);
+                return pod.getMetadata().getName();
+            });
+        }
+        return invokeAll(tasks);
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    /*
+     * Run the tasks on the executor and collect the names returned by the ones that succeeded.
+     */
+    private List<String> invokeAll(List<Callable<String>> tasks) {
+        var names = new ArrayList<String>(tasks.size());
+        try {
+            for (Future<String> future : executor.invokeAll(tasks)) {
+                try {
+                    names.add(future.get());
+                } catch (ExecutionException e) {
+                    LOGGER.error("Pod operation failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return names;
+    }
+
 }
@@ -15,25 +15,138 @@
  */
 package com.ibm.cnp.samples.pod;
 
+import com.ibm.cnp.cache.IndexedStore;
 import com.ibm.cnp.samples.job.Job;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
 import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodStatus;
+import lombok.var;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_JOB_LABEL_KEY;
 
-public class PodStore extends ConcurrentHashMap<Object, Pod> {
+/*
+ * Pod cache. In projected mode, the store only keeps the fields the samples use: identity, labels, owner references,
+ * deletion timestamp and phase. Label keys and values are interned as they are shared by all the pods of a job. Pods
+ * read from a projected store must be treated as immutable. As the prior resource of a modification is read from the
+ * store, filters that diff whole resources, like EventFilters.onlyPathsChanged(), do not work in projected mode.
+ */
+public class PodStore extends IndexedStore<Pod> {
+
+    private static final String JOB_INDEX = "job";
+    private static final String OWNER_INDEX = "owner";
+
+    private final boolean projected;
+
+    public PodStore() {
+        this(false);
+    }
+
+    public PodStore(boolean projected) {
+        this.projected = projected;
+        addIndex(JOB_INDEX, byLabel(CNP_JOB_LABEL_KEY));
+        addIndex(OWNER_INDEX, byOwnerUid());
+    }
 
     public List<Pod> getPodsForJob(Job job) {
-        return values().stream()
-                       .filter(j -> j.getMetadata()
-                                     .getLabels()
-                                     .get(CNP_JOB_LABEL_KEY)
-                                     .equals(job.getMetadata().getName()))
-                       .collect(Collectors.toList());
+        return getByIndex(JOB_INDEX, getKey(job.getMetadata().getNamespace(), job.getMetadata().getName()));
+    }
+
+    public int countPodsForJob(Job job) {
+        return countByIndex(JOB_INDEX, getKey(job.getMetadata().getNamespace(), job.getMetadata().getName()));
+    }
+
+    public List<Pod> getPodsForOwner(String uid) {
+        return getByIndex(OWNER_INDEX, uid);
+    }
+
+    /*
+     * Projection.
+     */
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    private static OwnerReference project(OwnerReference ref) {
+        var result = new OwnerReference();
+        result.setApiVersion(intern(ref.getApiVersion()));
+        result.setKind(intern(ref.getKind()));
+        result.setName(intern(ref.getName()));
+        result.setUid(ref.getUid());
+        result.setController(ref.getController());
+        return result;
+    }
+
+    private Pod project(Pod pod) {
+        if (!projected || pod == null) {
+            return pod;
+        }
+        var src = pod.getMetadata();
+        /*
+         * Project the metadata.
+         */
+        var meta = new ObjectMeta();
+        meta.setName(src.getName());
+        meta.setNamespace(intern(src.getNamespace()));
+        meta.setUid(src.getUid());
+        meta.setResourceVersion(src.getResourceVersion());
+        meta.setDeletionTimestamp(src.getDeletionTimestamp());
+        if (src.getLabels() != null) {
+            var labels = new HashMap<String, String>(src.getLabels().size() * 2);
+            src.getLabels().forEach((k, v) -> labels.put(intern(k), intern(v)));
+            meta.setLabels(labels);
+        }
+        if (src.getOwnerReferences() != null) {
+            meta.setOwnerReferences(src.getOwnerReferences()
+                                       .stream()
+                                       .map(PodStore::project)
+                                       .collect(Collectors.toList()));
+        }
+        /*
+         * Project the status.
+         */
+        var result = new Pod();
+        result.setMetadata(meta);
+        if (pod.getStatus() != null) {
+            var status = new PodStatus();
+            status.setPhase(intern(pod.getStatus().getPhase()));
+            result.setStatus(status);
+        }
+        return result;
+    }
+
+    /*
+     * Mutators.
+     */
+
+    @Override
+    public Pod put(Object key, Pod value) {
+        return super.put(key, project(value));
+    }
+
+    @Override
+    public Pod putIfAbsent(Object key, Pod value) {
+        return super.putIfAbsent(key, project(value));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return super.remove(key, value instanceof Pod ? project((Pod) value) : value);
+    }
+
+    @Override
+    public Pod replace(Object key, Pod value) {
+        return super.replace(key, project(value));
+    }
 
+    @Override
+    public boolean replace(Object key, Pod oldValue, Pod newValue) {
+        return super.replace(key, project(oldValue), project(newValue));
     }
 
 }
@@ -16,38 +16,90 @@
 package com.ibm.cnp.sync;
 
 import io.fabric8.kubernetes.api.model.HasMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public abstract class Command<Type extends HasMetadata, Status extends ICommandStatus> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Command.class);
+
     protected enum Action {
         Remove,
         Wait
     }
 
-    private Status status;
+    private final Status initial;
+    private final CompletableFuture<Status> status;
+    private final RetryPolicy policy;
 
     protected Command(Status status) {
-        this.status = status;
+        this(status, null);
+    }
+
+    protected Command(Status status, RetryPolicy policy) {
+        this.initial = status;
+        this.status = new CompletableFuture<>();
+        this.policy = policy;
     }
 
-    public synchronized Status get() {
-        if (status.isUnknown()) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    /*
+     * Wait for the status of the command. Return the initial status if the wait is interrupted or the command failed.
+     */
+    public Status get() {
+        try {
+            return status.get();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for {}", getClass().getSimpleName());
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("{} failed", getClass().getSimpleName(), e.getCause());
         }
+        return initial;
+    }
+
+    /*
+     * The future completes with the first status set by the command. Continuations chained on it run on the thread
+     * that completes the command, usually the controller thread that delivered the MODIFICATION event, so they must
+     * not block.
+     */
+    public CompletableFuture<Status> getAsync() {
         return status;
     }
 
-    protected synchronized void set(Status value) {
-        status = value;
-        notify();
+    protected void set(Status value) {
+        status.complete(value);
+    }
+
+    RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    /*
+     * Merge a command queued after this one into this one. This command has not run yet when merge() is called. If the
+     * merge succeeds, the other command is dropped and completes with the status of this one.
+     */
+    protected boolean merge(Command<Type, Status> next) {
+        return false;
     }
 
     public abstract boolean check(Type pre, Type cur);
 
     public abstract Action run();
 
+    public abstract Status timedOut();
+
+    /*
+     * Status of a command whose run() threw.
+     */
+    public abstract Status failed();
+
+    /*
+     * Status of a command applied to a resource the coordinator does not know, or that was deleted before the command
+     * completed.
+     */
+    public abstract Status notFound();
+
 }
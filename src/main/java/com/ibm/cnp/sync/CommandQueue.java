@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import com.ibm.cnp.utils.TimerWheel;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import lombok.var;
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Command queue of a single resource. The monitor of the queue only protects its bookkeeping: commands are run by the
+ * thread that owns the queue, outside of the monitor. A thread becomes the owner when offer() or onModification()
+ * returns a command, and remains the owner until next() returns null.
+ *
+ * A command waiting for its modification arms a timeout on the timer wheel. When it fires, the command is run again
+ * after a backoff, or completed with its timed out status once its retries are spent. Timers never run commands
+ * themselves: they hand the queue over to the retry executor of the coordinator, as commands may block.
+ *
+ * A queue is closed when its resource is deleted. Commands offered to a closed queue complete with their not found
+ * status right away, and the owner stops at the command it is running.
+ */
+final class CommandQueue<T extends HasMetadata, S extends ICommandStatus> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandQueue.class);
+
+    private enum State {
+        Idle,
+        Running,
+        Waiting
+    }
+
+    private final String name;
+    private final TimerWheel timer;
+    private final Executor retries;
+    private final RetryPolicy defaultPolicy;
+    private final Deque<Command<T, S>> commands;
+    private final Queue<AbstractEvent<? extends T>> deferred;
+    private State state;
+    private int attempt;
+    private long generation;
+    private TimerWheel.Timeout timeout;
+    private boolean closed;
+
+    CommandQueue(String name, TimerWheel timer, Executor retries, RetryPolicy defaultPolicy) {
+        this.name = name;
+        this.timer = timer;
+        this.retries = retries;
+        this.defaultPolicy = defaultPolicy;
+        this.commands = new LinkedList<>();
+        this.deferred = new LinkedList<>();
+        this.state = State.Idle;
+        this.attempt = 0;
+        this.generation = 0;
+        this.timeout = null;
+        this.closed = false;
+    }
+
+    void drain(Command<T, S> head) {
+        while (head != null) {
+            Command.Action action;
+            try {
+                action = head.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Command failed in queue {}", name, e);
+                head = fail(head);
+                continue;
+            }
+            head = next(action);
+        }
+    }
+
+    synchronized Command<T, S> offer(Command<T, S> command) {
+        if (closed) {
+            command.set(command.notFound());
+            return null;
+        }
+        /*
+         * Merge the command into the last pending one, if any. The head is never merged as it is in progress.
+         */
+        if (commands.size() > 1 && commands.getLast().merge(command)) {
+            LOGGER.debug("Merging command in queue {}", name);
+            commands.getLast().getAsync().thenAccept(command::set);
+            return null;
+        }
+        commands.add(command);
+        if (state != State.Idle) {
+            return null;
+        }
+        state = State.Running;
+        return command;
+    }
+
+    synchronized Command<T, S> onModification(AbstractEvent<? extends T> event) {
+        switch (state) {
+            case Running:
+                /*
+                 * The echo of the head may arrive before its run() returns. Keep it for next().
+                 */
+                deferred.add(event);
+                return null;
+            case Waiting:
+                return validate(event);
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * Close the queue and return the commands it still holds, which the caller must complete.
+     */
+    synchronized List<Command<T, S>> close() {
+        closed = true;
+        state = State.Idle;
+        generation += 1;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+        deferred.clear();
+        var pending = new ArrayList<Command<T, S>>(commands);
+        commands.clear();
+        return pending;
+    }
+
+    private synchronized Command<T, S> next(Command.Action action) {
+        if (closed) {
+            return null;
+        }
+        /*
+         * If the head is done, move on to the next command.
+         */
+        if (action == Command.Action.Remove) {
+            pop();
+            return advance();
+        }
+        /*
+         * Otherwise, validate the modifications received while the head was running.
+         */
+        state = State.Waiting;
+        Command<T, S> next = null;
+        while (state == State.Waiting && !deferred.isEmpty()) {
+            next = validate(deferred.remove());
+        }
+        deferred.clear();
+        /*
+         * Arm the timeout if the head is still waiting.
+         */
+        if (state == State.Waiting) {
+            var head = commands.element();
+            var gen = ++generation;
+            timeout = timer.schedule(() -> onTimeout(head, gen), getPolicy(head).getTimeout(), TimeUnit.MILLISECONDS);
+        }
+        return next;
+    }
+
+    /*
+     * Complete a command whose run() threw and move on to the next one.
+     */
+    private synchronized Command<T, S> fail(Command<T, S> head) {
+        head.set(head.failed());
+        if (closed) {
+            return null;
+        }
+        deferred.clear();
+        pop();
+        return advance();
+    }
+
+    private Command<T, S> validate(AbstractEvent<? extends T> event) {
+        /*
+         * If the head of the queue validates the event, remove it.
+         *
+         * NOTE(xrg) This filters out modifications of the resource that were triggered outside the coordinator
+         * mechanism, for instance the hash update applied by the UDP logic.
+         */
+        if (!commands.element().check(event.getPriorResource(), event.getResource())) {
+            LOGGER.warn("Keeping failed command in queue {}", name);
+            return null;
+        }
+        LOGGER.debug("Removing succeeded command from queue {}", name);
+        pop();
+        return advance();
+    }
+
+    /*
+     * Timeout handlers. They run on the timer thread.
+     */
+
+    private synchronized void onTimeout(Command<T, S> head, long gen) {
+        if (state != State.Waiting || gen != generation) {
+            return;
+        }
+        /*
+         * Time the command out if it has no retry left.
+         */
+        var policy = getPolicy(head);
+        if (attempt >= policy.getRetries()) {
+            LOGGER.warn("Command timed out in queue {}", name);
+            head.set(head.timedOut());
+            pop();
+            var next = advance();
+            if (next != null) {
+                retries.execute(() -> drain(next));
+            }
+            return;
+        }
+        /*
+         * Otherwise, retry after the backoff. The head keeps waiting for its modification in the meantime.
+         */
+        var delay = policy.getBackoff(attempt);
+        attempt += 1;
+        timeout = timer.schedule(() -> onRetry(head, gen), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onRetry(Command<T, S> head, long gen) {
+        if (state != State.Waiting || gen != generation) {
+            return;
+        }
+        LOGGER.debug("Retrying command in queue {} ({}/{})", name, attempt, getPolicy(head).getRetries());
+        state = State.Running;
+        timeout = null;
+        retries.execute(() -> drain(head));
+    }
+
+    /*
+     * Helpers.
+     */
+
+    private RetryPolicy getPolicy(Command<T, S> command) {
+        return command.getPolicy() != null ? command.getPolicy() : defaultPolicy;
+    }
+
+    private void pop() {
+        commands.remove();
+        attempt = 0;
+        generation += 1;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    private Command<T, S> advance() {
+        if (commands.isEmpty()) {
+            state = State.Idle;
+            return null;
+        }
+        state = State.Running;
+        return commands.element();
+    }
+
+}
@@ -16,96 +16,103 @@
 package com.ibm.cnp.sync;
 
 import com.ibm.cnp.events.IEventConsumerDelegate;
+import com.ibm.cnp.utils.Threads;
+import com.ibm.cnp.utils.TimerWheel;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import lombok.var;
 import org.microbean.kubernetes.controller.AbstractEvent;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 public abstract class Coordinator<T extends HasMetadata, S extends ICommandStatus> implements
                                                                                    IEventConsumerDelegate<T> {
 
-    private static final Logger logger = LoggerFactory.getLogger(Coordinator.class);
+    public static final int DEFAULT_RETRY_THREADS = 4;
 
-    private final Map<String, Queue<Command<T, S>>> commandQueues;
+    private static Executor sharedRetries;
+
+    private final ConcurrentMap<String, CommandQueue<T, S>> commandQueues;
+    private final TimerWheel timer;
+    private final Executor retries;
+    private final RetryPolicy policy;
 
     protected Coordinator() {
-        commandQueues = new HashMap<>();
+        this(RetryPolicy.DEFAULT);
+    }
+
+    protected Coordinator(RetryPolicy policy) {
+        this(policy, TimerWheel.shared());
     }
 
-    protected void apply(T resource, Command<T, S> command) {
-        synchronized (commandQueues) {
-            var queue = commandQueues.get(resource.getMetadata().getName());
-            if (!queue.isEmpty() || command.run() == Command.Action.Wait) {
-                queue.add(command);
-            }
+    protected Coordinator(RetryPolicy policy, TimerWheel timer) {
+        this(policy, timer, sharedRetries());
+    }
+
+    /*
+     * Commands retried or resumed after a timeout run on the retries executor. They may block on the API server, so
+     * it must not be a pool shared with unrelated work.
+     */
+    protected Coordinator(RetryPolicy policy, TimerWheel timer, Executor retries) {
+        this.commandQueues = new ConcurrentHashMap<>();
+        this.timer = timer;
+        this.retries = retries;
+        this.policy = policy;
+    }
+
+    /*
+     * The retry executor shared by the coordinators that do not bring their own.
+     */
+    private static synchronized Executor sharedRetries() {
+        if (sharedRetries == null) {
+            sharedRetries = Threads.newFixedExecutor("cnp-retry", DEFAULT_RETRY_THREADS);
         }
+        return sharedRetries;
     }
 
-    public void onAddition(AbstractEvent<? extends T> event) {
-        synchronized (commandQueues) {
-            var resource = event.getResource();
-            commandQueues.put(resource.getMetadata().getName(), new LinkedList<>());
+    /*
+     * Commands of a queue are run until one waits for its modification or the queue is empty. No lock is held while a
+     * command runs, so commands on different resources proceed in parallel. A command applied to a resource that has
+     * not been added, or was deleted, completes with its not found status.
+     */
+    protected CompletableFuture<S> apply(T resource, Command<T, S> command) {
+        var queue = commandQueues.get(resource.getMetadata().getName());
+        if (queue == null) {
+            command.set(command.notFound());
+            return command.getAsync();
         }
+        queue.drain(queue.offer(command));
+        return command.getAsync();
+    }
+
+    public void onAddition(AbstractEvent<? extends T> event) {
+        var name = event.getResource().getMetadata().getName();
+        commandQueues.computeIfAbsent(name, n -> new CommandQueue<>(n, timer, retries, policy));
     }
 
     public void onModification(AbstractEvent<? extends T> event) {
-        synchronized (commandQueues) {
-            var pre = event.getPriorResource();
-            var cur = event.getResource();
-            /*
-             * Grab the queue.
-             */
-            if (!commandQueues.containsKey(cur.getMetadata().getName())) {
-                return;
-            }
-            var queue = commandQueues.get(cur.getMetadata().getName());
-            /*
-             * If the queue has no command, return.
-             */
-            if (queue.isEmpty()) {
-                return;
-            }
-            /*
-             * Grab the head of the queue.
-             */
-            var head = queue.element();
-            /*
-             * If the head of the queue validates the event, remove it.
-             *
-             * NOTE(xrg) This filters out modifications of the resource that were triggered outside the coordinator
-             * mechanism, for instance the hash update applied by the UDP logic.
-             */
-            if (head.check(pre, cur)) {
-                logger.debug("Removing succeeded command from queue {}", cur.getMetadata().getName());
-                queue.remove();
-            } else {
-                logger.warn("Keeping failed command in queue {}", cur.getMetadata().getName());
-            }
-            /*
-             * Return if the queue is empty.
-             */
-            if (queue.isEmpty()) {
-                return;
-            }
-            /*
-             * Otherwise process the next elements.
-             */
-            while (queue.element().run() == Command.Action.Remove) {
-                queue.remove();
-            }
+        /*
+         * Grab the queue.
+         */
+        var queue = commandQueues.get(event.getResource().getMetadata().getName());
+        if (queue == null) {
+            return;
         }
+        /*
+         * Check the head of the queue and process the next elements.
+         */
+        queue.drain(queue.onModification(event));
     }
 
     public void onDeletion(AbstractEvent<? extends T> event) {
-        synchronized (commandQueues) {
-            var resource = event.getResource();
-            commandQueues.remove(resource.getMetadata().getName());
+        /*
+         * Close the queue, which cancels its timeout, and complete the commands it held.
+         */
+        var queue = commandQueues.remove(event.getResource().getMetadata().getName());
+        if (queue != null) {
+            queue.close().forEach(c -> c.set(c.notFound()));
         }
     }
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import lombok.var;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Creations and deletions issued for a key that the cache has not observed yet. Both are tracked by name: a creation is
+ * recorded once the API server has allocated the name, and a deletion observed twice (deletion timestamp set, then
+ * removal) is only counted once. The expectations of a key are dropped once they are older than the TTL, in case some
+ * observation never arrives.
+ *
+ * The cache may hold an object before its creation is observed, so callers must not count the pending creations that
+ * are already in the cache.
+ *
+ * An entry is only changed under the lock of its key in the map, so that names are never added to an entry that an
+ * observation is dropping.
+ */
+public class Expectations<K> {
+
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
+
+    private final long ttl;
+    private final ConcurrentMap<K, Entry> entries;
+
+    private static class Entry {
+
+        private final Set<String> creations;
+        private final Set<String> deletions;
+        private volatile long timestamp;
+
+        Entry() {
+            this.creations = ConcurrentHashMap.newKeySet();
+            this.deletions = ConcurrentHashMap.newKeySet();
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        boolean isSatisfied() {
+            return creations.isEmpty() && deletions.isEmpty();
+        }
+
+    }
+
+    public Expectations() {
+        this(DEFAULT_TTL, TimeUnit.MILLISECONDS);
+    }
+
+    public Expectations(long ttl, TimeUnit unit) {
+        this.ttl = unit.toMillis(ttl);
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public void expectCreations(K key, Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        expect(key, e -> e.creations.addAll(names));
+    }
+
+    public void expectDeletions(K key, Collection<String> names) {
+        expect(key, e -> e.deletions.addAll(names));
+    }
+
+    /*
+     * Lower the deletions expected for a key, when some of them failed and will never be observed.
+     */
+    public void lowerDeletions(K key, Collection<String> names) {
+        settle(key, e -> e.deletions.removeAll(names));
+    }
+
+    public void creationObserved(K key, String name) {
+        settle(key, e -> e.creations.remove(name));
+    }
+
+    /*
+     * A deletion also settles the creation of the same name, in case the creation was never observed.
+     */
+    public void deletionObserved(K key, String name) {
+        settle(key, e -> {
+            e.deletions.remove(name);
+            e.creations.remove(name);
+        });
+    }
+
+    public Set<String> getPendingCreations(K key) {
+        var entry = get(key);
+        return entry == null ? Collections.emptySet() : Collections.unmodifiableSet(entry.creations);
+    }
+
+    public Set<String> getPendingDeletions(K key) {
+        var entry = get(key);
+        return entry == null ? Collections.emptySet() : Collections.unmodifiableSet(entry.deletions);
+    }
+
+    public boolean isSatisfied(K key) {
+        var entry = get(key);
+        return entry == null || entry.isSatisfied();
+    }
+
+    public void forget(K key) {
+        entries.remove(key);
+    }
+
+    private void expect(K key, Consumer<Entry> action) {
+        entries.compute(key, (k, v) -> {
+            var entry = v == null ? new Entry() : v;
+            action.accept(entry);
+            entry.timestamp = System.currentTimeMillis();
+            return entry;
+        });
+    }
+
+    /*
+     * Settle some expectations of a key, dropping the entry once it is satisfied.
+     */
+    private void settle(K key, Consumer<Entry> action) {
+        entries.computeIfPresent(key, (k, v) -> {
+            action.accept(v);
+            return v.isSatisfied() ? null : v;
+        });
+    }
+
+    /*
+     * Get the expectations of a key, dropping them if they expired.
+     */
+    private Entry get(K key) {
+        var entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.timestamp > ttl) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+}
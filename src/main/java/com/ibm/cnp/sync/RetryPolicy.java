@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * A command that waits for its modification is run again if the modification does not arrive within the timeout. The
+ * n-th retry happens after a backoff of (backoff * 2^n), and the command times out once all the retries are spent.
+ */
+public class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(30, 3, 1, TimeUnit.SECONDS);
+
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    @Getter private final long timeout;
+    @Getter private final int retries;
+    @Getter private final long backoff;
+
+    public RetryPolicy(long timeout, int retries, long backoff, TimeUnit unit) {
+        this.timeout = unit.toMillis(timeout);
+        this.retries = retries;
+        this.backoff = unit.toMillis(backoff);
+    }
+
+    public long getBackoff(int attempt) {
+        return backoff << Math.min(attempt, MAX_BACKOFF_SHIFT);
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+
+/*
+ * Conditions that keys wait for. A key registers a predicate over some inputs, and whoever changes those inputs
+ * signals the key. The key is only woken up once its predicate holds.
+ */
+public class ConditionRegistry<K> {
+
+    private final ConcurrentMap<K, BooleanSupplier> conditions;
+
+    public ConditionRegistry() {
+        this.conditions = new ConcurrentHashMap<>();
+    }
+
+    public void register(K key, BooleanSupplier predicate) {
+        conditions.put(key, predicate);
+    }
+
+    public void unregister(K key) {
+        conditions.remove(key);
+    }
+
+    public boolean isRegistered(K key) {
+        return conditions.containsKey(key);
+    }
+
+    /*
+     * Evaluate the condition of a key after its inputs changed. Return true if the key must be woken up, that is if it
+     * has no condition or if its condition holds. In the latter case the condition is removed.
+     */
+    public boolean signal(K key) {
+        var predicate = conditions.get(key);
+        if (predicate == null) {
+            return true;
+        }
+        if (!predicate.getAsBoolean()) {
+            return false;
+        }
+        conditions.remove(key, predicate);
+        return true;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Executor made of a fixed number of serial lanes. Tasks are hashed to a lane by key, so tasks with the same key run
+ * in submission order while tasks with different keys run concurrently. Lanes are bounded: execute() blocks when the
+ * lane of the key is full.
+ */
+public class KeyedExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyedExecutor.class);
+
+    private final AtomicBoolean keepRunning;
+    private final Lane[] lanes;
+
+    private class Lane implements Runnable {
+
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        Lane(String name, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = Threads.newThread(name, this);
+        }
+
+        @Override
+        public void run() {
+            while (keepRunning.get() || !queue.isEmpty()) {
+                try {
+                    var task = queue.poll(1, TimeUnit.SECONDS);
+                    if (task != null) {
+                        task.run();
+                    }
+                } catch (InterruptedException ignored) {
+                } catch (RuntimeException e) {
+                    LOGGER.error("Task failed in lane {}", thread.getName(), e);
+                }
+            }
+        }
+    }
+
+    public KeyedExecutor(String name, int lanes, int capacity) {
+        this.keepRunning = new AtomicBoolean(true);
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i += 1) {
+            this.lanes[i] = new Lane(name + "-" + i, capacity);
+            this.lanes[i].thread.start();
+        }
+    }
+
+    public void execute(Object key, Runnable task) throws InterruptedException {
+        var hash = key.hashCode();
+        lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)].queue.put(task);
+    }
+
+    /*
+     * Stop the lanes once the tasks already submitted have run.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        keepRunning.set(false);
+        for (var lane : lanes) {
+            lane.thread.join();
+        }
+    }
+
+}
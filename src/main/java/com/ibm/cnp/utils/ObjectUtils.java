@@ -15,19 +15,51 @@
  */
 package com.ibm.cnp.utils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.var;
 
-import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 public class ObjectUtils {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<Class<?>, UnaryOperator<?>> COPIERS = new ConcurrentHashMap<>();
+
+    public static ObjectMapper getObjectMapper() {
+        return MAPPER;
+    }
+
+    /*
+     * Register a dedicated copier, typically a copy constructor, for a type. Types without a copier are copied through
+     * a JSON tree.
+     */
+    public static <T> void registerCopier(Class<T> clazz, UnaryOperator<T> copier) {
+        COPIERS.put(clazz, copier);
+    }
+
+    @SuppressWarnings("unchecked")
     public static <T> Optional<T> deepCopy(T original, Class<T> clazz) {
+        if (original == null) {
+            return Optional.empty();
+        }
+        /*
+         * Use the copier of the type, if any.
+         */
+        var copier = (UnaryOperator<T>) COPIERS.get(clazz);
+        if (copier != null) {
+            return Optional.ofNullable(copier.apply(original));
+        }
+        /*
+         * Otherwise, go through a JSON tree.
+         */
         T result;
-        ObjectMapper objectMapper = new ObjectMapper();
         try {
-            result = objectMapper.readValue(objectMapper.writeValueAsString(original), clazz);
-        } catch (IOException e) {
+            result = MAPPER.treeToValue(MAPPER.valueToTree(original), clazz);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
             result = null;
         }
         return Optional.ofNullable(result);
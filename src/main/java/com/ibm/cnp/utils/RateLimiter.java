@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.Getter;
+import lombok.var;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Token bucket rate limiter. The bucket holds up to burst tokens and refills at qps tokens per second. Callers that
+ * find the bucket empty reserve a future token and sleep until it is due, so waiting callers are served in order.
+ */
+public class RateLimiter {
+
+    @Getter
+    private final double qps;
+    @Getter
+    private final int burst;
+    private final double nanosPerToken;
+
+    private double tokens;
+    private long last;
+
+    public RateLimiter(double qps, int burst) {
+        if (qps <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("QPS and burst must be positive");
+        }
+        this.qps = qps;
+        this.burst = burst;
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / qps;
+        this.tokens = burst;
+        this.last = System.nanoTime();
+    }
+
+    /*
+     * Take a token, waiting until one is available.
+     */
+    public void acquire() throws InterruptedException {
+        var delay = reserve();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /*
+     * Take a token if one is available right away.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /*
+     * Take a token, possibly in the future, and return the time to wait for it in nanoseconds.
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - last) / nanosPerToken);
+        last = now;
+    }
+
+}
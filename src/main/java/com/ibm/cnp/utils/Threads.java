@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Thread creation. Virtual threads are opted in with the cnp.virtualThreads system property or the VIRTUAL_THREADS
+ * environment variable, and are only available when the multi-release jar runs on Java 21 or later, which loads the
+ * Java 21 version of this class. This version always creates platform threads.
+ */
+public final class Threads {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "cnp.virtualThreads";
+    public static final String VIRTUAL_THREADS_ENV = "VIRTUAL_THREADS";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Threads.class);
+
+    static {
+        if (isRequested()) {
+            LOGGER.warn("Virtual threads require Java 21 or later, using platform threads");
+        }
+    }
+
+    private Threads() {
+    }
+
+    static boolean isRequested() {
+        return Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)
+               || Boolean.parseBoolean(System.getenv(VIRTUAL_THREADS_ENV));
+    }
+
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /*
+     * Create an unstarted thread.
+     */
+    public static Thread newThread(String name, Runnable task) {
+        return new Thread(task, name);
+    }
+
+    /*
+     * Create a factory of threads named prefix-0, prefix-1, etc.
+     */
+    public static ThreadFactory factory(String prefix, boolean daemon) {
+        var index = new AtomicInteger();
+        return r -> {
+            var thread = new Thread(r, prefix + "-" + index.getAndIncrement());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    /*
+     * Create an executor that runs each task on a thread of its own, reusing idle threads.
+     */
+    public static ExecutorService newPerTaskExecutor(String prefix) {
+        return Executors.newCachedThreadPool(factory(prefix, true));
+    }
+
+    /*
+     * Create an executor that runs the tasks on a fixed number of daemon threads.
+     */
+    public static ExecutorService newFixedExecutor(String prefix, int threads) {
+        return Executors.newFixedThreadPool(threads, factory(prefix, true));
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Hashed timer wheel. Timeouts are hashed into a ring of buckets by their deadline and a single thread expires one
+ * bucket per tick, so scheduling and cancelling are O(1) regardless of the number of armed timeouts. Deadlines are
+ * rounded up to the tick duration. Tasks run on the wheel thread and must not block.
+ */
+public class TimerWheel implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    private static TimerWheel shared;
+
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state;
+
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(INIT);
+        }
+
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Timeout task failed", e);
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            var next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void expire() {
+            var timeout = head;
+            while (timeout != null) {
+                if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else if (timeout.rounds <= 0) {
+                    var next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.rounds -= 1;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending;
+    private final Queue<Timeout> cancelled;
+    private final AtomicBoolean keepRunning;
+    private final Thread thread;
+    private final long startTime;
+
+    private long tick;
+
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        /*
+         * Round the wheel size to the next power of two.
+         */
+        var size = Integer.highestOneBit(Math.max(ticksPerWheel, 1) - 1) << 1;
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i += 1) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        /*
+         * Initialize the local state.
+         */
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.keepRunning = new AtomicBoolean(true);
+        this.startTime = System.nanoTime();
+        this.tick = 0;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /*
+     * The wheel shared by the components that do not bring their own. It ticks every 100ms and spans about 50s per
+     * round.
+     */
+    public static synchronized TimerWheel shared() {
+        if (shared == null) {
+            shared = new TimerWheel("cnp-timer", 100, TimeUnit.MILLISECONDS, 512);
+        }
+        return shared;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        var deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        var timeout = new Timeout(this, task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        keepRunning.set(false);
+        thread.interrupt();
+        thread.join();
+    }
+
+    private void run() {
+        while (keepRunning.get()) {
+            /*
+             * Wait for the end of the current tick.
+             */
+            var deadline = tickDuration * (tick + 1);
+            var delay = deadline - (System.nanoTime() - startTime);
+            if (delay > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException ignored) {
+                }
+                continue;
+            }
+            /*
+             * Process the cancelled and new timeouts, then expire the current bucket.
+             */
+            processCancelled();
+            processPending();
+            wheel[(int) (tick & mask)].expire();
+            tick += 1;
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void processPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            var expiry = timeout.deadline / tickDuration;
+            timeout.rounds = (expiry - tick) / wheel.length;
+            wheel[(int) (Math.max(expiry, tick) & mask)].add(timeout);
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Work queue of keys, modeled after the client-go work queue:
+ *
+ * - a key is queued at most once: adding a key that is already queued is a no-op;
+ * - a key is processed by at most one worker: a key added while it is processed is queued again by done();
+ * - a key that failed can be added again after an exponential backoff with addRateLimited(), until forget() is called.
+ *
+ * The queue can be bounded. Since keys are coalesced, only a key that is neither queued nor processed takes a slot, and
+ * add() blocks until a slot is free. Keys added by timers (addAfter(), addRateLimited()) and keys queued again by
+ * done() bypass the bound, as they must not block the timer or the workers.
+ */
+public class WorkQueue<K> {
+
+    private final Lock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private final Queue<K> queue;
+    private final Set<K> dirty;
+    private final Set<K> processing;
+    private final Map<K, Integer> failures;
+    private final TimerWheel timer;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int capacity;
+    private int highWaterMark;
+    private boolean shuttingDown;
+
+    public WorkQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public WorkQueue(int capacity) {
+        this(capacity, TimerWheel.shared(), 5, 60000, TimeUnit.MILLISECONDS);
+    }
+
+    public WorkQueue(TimerWheel timer, long baseDelay, long maxDelay, TimeUnit unit) {
+        this(Integer.MAX_VALUE, timer, baseDelay, maxDelay, unit);
+    }
+
+    public WorkQueue(int capacity, TimerWheel timer, long baseDelay, long maxDelay, TimeUnit unit) {
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.queue = new LinkedList<>();
+        this.dirty = new HashSet<>();
+        this.processing = new HashSet<>();
+        this.failures = new HashMap<>();
+        this.timer = timer;
+        this.baseDelay = unit.toMillis(baseDelay);
+        this.maxDelay = unit.toMillis(maxDelay);
+        this.capacity = Math.max(capacity, 1);
+        this.highWaterMark = 0;
+        this.shuttingDown = false;
+    }
+
+    /*
+     * Add a key, waiting for a free slot if the key is new and the queue is full. If the thread is interrupted while
+     * waiting, the key is added anyway and the interrupt status is restored.
+     */
+    public void add(K key) {
+        lock.lock();
+        try {
+            while (queue.size() >= capacity && !shuttingDown && !dirty.contains(key) && !processing.contains(key)) {
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            enqueue(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Add a key even if the queue is full.
+     */
+    public void addUnbounded(K key) {
+        lock.lock();
+        try {
+            enqueue(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(K key) {
+        if (shuttingDown || !dirty.add(key) || processing.contains(key)) {
+            return;
+        }
+        push(key);
+    }
+
+    private void push(K key) {
+        queue.add(key);
+        highWaterMark = Math.max(highWaterMark, queue.size());
+        notEmpty.signal();
+    }
+
+    public void addAfter(K key, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            addUnbounded(key);
+            return;
+        }
+        timer.schedule(() -> addUnbounded(key), delay, unit);
+    }
+
+    public void addRateLimited(K key) {
+        long delay;
+        lock.lock();
+        try {
+            var count = failures.merge(key, 1, Integer::sum);
+            delay = Math.min(baseDelay << Math.min(count - 1, 30), maxDelay);
+        } finally {
+            lock.unlock();
+        }
+        addAfter(key, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public void forget(K key) {
+        lock.lock();
+        try {
+            failures.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRequeues(K key) {
+        lock.lock();
+        try {
+            return failures.getOrDefault(key, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Grab the next key to process, or null if none is available before the timeout. The caller must call done() once
+     * the key is processed.
+     */
+    public K poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (queue.isEmpty()) {
+                if (shuttingDown || nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            var key = queue.remove();
+            processing.add(key);
+            dirty.remove(key);
+            notFull.signal();
+            return key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void done(K key) {
+        lock.lock();
+        try {
+            processing.remove(key);
+            if (dirty.contains(key)) {
+                push(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * Largest number of keys queued at once since the queue was created.
+     */
+    public int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutDown() {
+        lock.lock();
+        try {
+            shuttingDown = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Java 21 version of the thread creation, loaded from the multi-release jar. When virtual threads are opted in, every
+ * thread this class creates is virtual and the per-task executors start one virtual thread per task.
+ */
+public final class Threads {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "cnp.virtualThreads";
+    public static final String VIRTUAL_THREADS_ENV = "VIRTUAL_THREADS";
+
+    private static final boolean VIRTUAL = isRequested();
+
+    private Threads() {
+    }
+
+    static boolean isRequested() {
+        return Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)
+               || Boolean.parseBoolean(System.getenv(VIRTUAL_THREADS_ENV));
+    }
+
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /*
+     * Create an unstarted thread.
+     */
+    public static Thread newThread(String name, Runnable task) {
+        return VIRTUAL ? Thread.ofVirtual().name(name).unstarted(task) : new Thread(task, name);
+    }
+
+    /*
+     * Create a factory of threads named prefix-0, prefix-1, etc.
+     */
+    public static ThreadFactory factory(String prefix, boolean daemon) {
+        if (VIRTUAL) {
+            return Thread.ofVirtual().name(prefix + "-", 0).factory();
+        }
+        return Thread.ofPlatform().name(prefix + "-", 0).daemon(daemon).factory();
+    }
+
+    /*
+     * Create an executor that runs each task on a thread of its own, reusing idle threads for platform threads.
+     */
+    public static ExecutorService newPerTaskExecutor(String prefix) {
+        if (VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(factory(prefix, true));
+        }
+        return Executors.newCachedThreadPool(factory(prefix, true));
+    }
+
+    /*
+     * Create an executor that runs the tasks on a fixed number of threads, virtual ones when opted in.
+     */
+    public static ExecutorService newFixedExecutor(String prefix, int threads) {
+        return Executors.newFixedThreadPool(threads, factory(prefix, true));
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.cache;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedStoreTest {
+
+    private static final String APP_LABEL = "app";
+    private static final String APP_INDEX = "app";
+    private static final String NAME_INDEX = "name";
+
+    private IndexedStore<Pod> store;
+
+    private static Pod pod(String name, String app) {
+        return new PodBuilder().withNewMetadata()
+                               .withNamespace("default")
+                               .withName(name)
+                               .addToLabels(APP_LABEL, app)
+                               .endMetadata()
+                               .build();
+    }
+
+    private void put(Pod pod) {
+        store.put(IndexedStore.getKey(pod.getMetadata().getNamespace(), pod.getMetadata().getName()), pod);
+    }
+
+    @Before
+    public void setUp() {
+        store = new IndexedStore<>();
+        store.addIndex(NAME_INDEX, IndexedStore.byNamespacedName());
+        store.addIndex(APP_INDEX, IndexedStore.byLabel(APP_LABEL));
+    }
+
+    @Test
+    public void resourcesAreFoundByIndex() {
+        put(pod("a", "x"));
+        put(pod("b", "x"));
+        put(pod("c", "y"));
+        assertEquals(2, store.countByIndex(APP_INDEX, "default/x"));
+        assertEquals(1, store.getByIndex(APP_INDEX, "default/y").size());
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/z"));
+        assertEquals("b", store.getFirstByIndex(NAME_INDEX, "default/b").get().getMetadata().getName());
+    }
+
+    @Test
+    public void indexAddedLaterCoversExistingResources() {
+        put(pod("a", "x"));
+        store.addIndex("upper", r -> Collections.singletonList(r.getMetadata().getName().toUpperCase()));
+        assertEquals(1, store.countByIndex("upper", "A"));
+    }
+
+    @Test
+    public void modificationsMoveResourcesBetweenBuckets() {
+        put(pod("a", "x"));
+        put(pod("a", "y"));
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/x"));
+        assertEquals(1, store.countByIndex(APP_INDEX, "default/y"));
+        store.remove("default/a");
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/y"));
+        assertEquals(0, store.countByIndex(NAME_INDEX, "default/a"));
+    }
+
+    @Test
+    public void equalReplacementStaysIndexed() {
+        /*
+         * The new version is equal to the previous one, so only an identity check tells them apart when the previous
+         * entry is removed.
+         */
+        var first = pod("a", "x");
+        var second = new PodBuilder(first).build();
+        put(first);
+        put(second);
+        assertEquals(1, store.countByIndex(APP_INDEX, "default/x"));
+        assertSame(second, store.getFirstByIndex(NAME_INDEX, "default/a").get());
+    }
+
+    @Test
+    public void samePutTwiceStaysIndexed() {
+        /*
+         * A resync puts the instance that is already stored.
+         */
+        var a = pod("a", "x");
+        put(a);
+        put(a);
+        assertEquals(1, store.size());
+        assertEquals(1, store.countByIndex(NAME_INDEX, "default/a"));
+        assertEquals(1, store.countByIndex(APP_INDEX, "default/x"));
+    }
+
+    @Test
+    public void conditionalMutatorsMatchEqualCopies() {
+        var a = pod("a", "x");
+        put(a);
+        var b = pod("a", "y");
+        assertTrue(store.replace("default/a", new PodBuilder(a).build(), b));
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/x"));
+        assertEquals(1, store.countByIndex(APP_INDEX, "default/y"));
+        assertTrue(store.remove("default/a", new PodBuilder(b).build()));
+        assertTrue(store.isEmpty());
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/y"));
+        assertEquals(0, store.countByIndex(NAME_INDEX, "default/a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void computeIsUnsupported() {
+        store.compute("default/a", (k, v) -> pod("a", "x"));
+    }
+
+    @Test
+    public void conditionalMutatorsKeepTheIndexesConsistent() {
+        var a = pod("a", "x");
+        store.putIfAbsent("default/a", a);
+        store.putIfAbsent("default/a", pod("a", "y"));
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/y"));
+        var b = pod("a", "y");
+        assertTrue(store.replace("default/a", a, b));
+        assertEquals(1, store.countByIndex(APP_INDEX, "default/y"));
+        assertTrue(store.remove("default/a", b));
+        assertEquals(0, store.countByIndex(APP_INDEX, "default/y"));
+        put(a);
+        store.clear();
+        assertEquals(0, store.countByIndex(NAME_INDEX, "default/a"));
+    }
+
+    @Test
+    public void lookupNeverMissesAResourceBeingModified() throws InterruptedException {
+        put(pod("a", "x"));
+        var running = new AtomicBoolean(true);
+        var misses = new AtomicInteger();
+        var reader = new Thread(() -> {
+            while (running.get()) {
+                if (!store.getFirstByIndex(NAME_INDEX, "default/a").isPresent()) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100000; i += 1) {
+            put(pod("a", "x"));
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, misses.get());
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.events;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of dispatching one event to 1, 10 and 100 listeners, through the registry and through the list with a capturing
+ * lambda that it replaced. Run with -prof gc to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerRegistryBenchmark {
+
+    private static class Listener implements IEventConsumerDelegate<Pod> {
+
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onAddition(AbstractEvent<? extends Pod> event) {
+            blackhole.consume(event);
+        }
+
+        @Override
+        public void onModification(AbstractEvent<? extends Pod> event) {
+            blackhole.consume(event);
+        }
+
+        @Override
+        public void onDeletion(AbstractEvent<? extends Pod> event) {
+            blackhole.consume(event);
+        }
+
+    }
+
+    @Param({"1", "10", "100"})
+    private int listeners;
+
+    private ListenerRegistry<Pod> registry;
+    private List<IEventConsumerDelegate<Pod>> list;
+    private AbstractEvent<Pod> event;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        registry = new ListenerRegistry<>();
+        list = new ArrayList<>();
+        for (int i = 0; i < listeners; i += 1) {
+            var listener = new Listener(blackhole);
+            registry.add(listener);
+            list.add(listener);
+        }
+        var pod = new PodBuilder().withNewMetadata().withNamespace("default").withName("pod").endMetadata().build();
+        event = new AbstractEvent<Pod>(this, AbstractEvent.Type.MODIFICATION, pod, pod) {
+        };
+    }
+
+    @Benchmark
+    public void registry() {
+        registry.onModification(event);
+    }
+
+    @Benchmark
+    public void listForEach() {
+        list.forEach(l -> l.onModification(event));
+    }
+
+}
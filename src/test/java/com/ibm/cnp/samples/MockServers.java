@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples;
+
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import lombok.var;
+import okhttp3.mockwebserver.MockWebServer;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Local mock API servers for the benchmarks.
+ */
+public final class MockServers {
+
+    /*
+     * The mock server logs every request. Hold on to its logger so that the level sticks.
+     */
+    private static final Logger MOCK_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    /*
+     * The mock server writes the headers and the body of a response separately. Without TCP_NODELAY, the body waits
+     * for the delayed acknowledgment of the headers, which adds about 40ms to every request.
+     */
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    var socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return createServerSocket(port, 50, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return createServerSocket(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            var socket = createServerSocket();
+            socket.bind(new InetSocketAddress(address, port), backlog);
+            return socket;
+        }
+
+    }
+
+    private MockServers() {
+    }
+
+    /*
+     * Create and start a quiet mock server in expectation mode.
+     */
+    public static KubernetesMockServer start() {
+        MOCK_LOGGER.setLevel(Level.WARNING);
+        var web = new MockWebServer();
+        web.setServerSocketFactory(new NoDelayServerSocketFactory());
+        var server = new KubernetesMockServer(web, new HashMap<>(), false);
+        server.init();
+        return server;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.job;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import lombok.var;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latency of the JobStore lookups at 100, 10k and 100k jobs, through the indexes and through the scan of all the jobs
+ * that they replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobStoreBenchmark {
+
+    private static final String NAMESPACE = "default";
+
+    @Param({"100", "10000", "100000"})
+    private int jobs;
+
+    private JobStore store;
+    private String[] names;
+    private String[] uids;
+
+    @Setup
+    public void setUp() {
+        store = new JobStore();
+        names = new String[jobs];
+        uids = new String[jobs];
+        for (int i = 0; i < jobs; i += 1) {
+            names[i] = "job-" + i;
+            uids[i] = "uid-" + i;
+            var job = new Job();
+            job.setMetadata(new ObjectMetaBuilder().withNamespace(NAMESPACE)
+                                                   .withName(names[i])
+                                                   .withUid(uids[i])
+                                                   .build());
+            store.put(JobStore.getKey(NAMESPACE, names[i]), job);
+        }
+    }
+
+    private int next() {
+        return ThreadLocalRandom.current().nextInt(jobs);
+    }
+
+    @Benchmark
+    public Optional<Job> byName() {
+        return store.getJobWithName(NAMESPACE, names[next()]);
+    }
+
+    @Benchmark
+    public Optional<Job> byUid() {
+        return store.getJobWithUid(uids[next()]);
+    }
+
+    @Benchmark
+    public Optional<Job> scanByName() {
+        var name = names[next()];
+        return store.values()
+                    .stream()
+                    .filter(j -> j.getMetadata().getNamespace().equals(NAMESPACE))
+                    .filter(j -> j.getMetadata().getName().equals(name))
+                    .findFirst();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.job;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PodCountersTest {
+
+    private static Pod pod(String phase, boolean terminating) {
+        return new PodBuilder().withNewMetadata()
+                               .withName("a")
+                               .withDeletionTimestamp(terminating ? "2020-01-01T00:00:00Z" : null)
+                               .endMetadata()
+                               .withNewStatus().withPhase(phase).endStatus()
+                               .build();
+    }
+
+    @Test
+    public void podsAreCountedByPhase() {
+        var counters = new PodCounters();
+        var pending = pod("Pending", false);
+        counters.add(pending);
+        var failed = pod("Failed", false);
+        assertTrue(counters.update(pending, failed));
+        assertEquals(0, counters.getPending());
+        assertEquals(1, counters.getFailed());
+        counters.remove(failed);
+        assertEquals(0, counters.getTotal());
+        assertEquals(0, counters.getFailed());
+    }
+
+    @Test
+    public void terminatingPodsAreNotCountedAsFailed() {
+        var counters = new PodCounters();
+        var running = pod("Running", false);
+        counters.add(running);
+        var deleted = pod("Running", true);
+        assertTrue(counters.update(running, deleted));
+        var killed = pod("Failed", true);
+        assertFalse(counters.update(deleted, killed));
+        assertEquals(1, counters.getTotal());
+        assertEquals(1, counters.getTerminating());
+        assertEquals(0, counters.getFailed());
+        counters.remove(killed);
+        assertEquals(0, counters.getTerminating());
+    }
+
+}
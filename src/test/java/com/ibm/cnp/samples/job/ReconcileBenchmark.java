@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.job;
+
+import com.ibm.cnp.conductor.Conductor;
+import com.ibm.cnp.conductor.TransitionTable;
+import com.ibm.cnp.samples.MockServers;
+import com.ibm.cnp.utils.Threads;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinitionBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinitionListBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import lombok.var;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_CRD_GROUP;
+import static com.ibm.cnp.samples.ICustomResourceCommons.CNP_CRD_VERSION;
+
+/*
+ * Time for a conductor to reconcile 10k jobs at once, with platform and with virtual threads. Each reconciliation
+ * patches the state of its job on a local mock API server that answers after the given latency, so it blocks like a
+ * real one. The patches in flight are capped, like the API server caps the requests in flight of a client; the mock
+ * server also needs one thread per connection. With platform threads, a shard reconciles its keys one after the other,
+ * so at most one patch per shard is in flight; with virtual threads, every reconciliation runs on a thread of its own
+ * and only the cap applies.
+ *
+ * The threading mode is fixed when the Threads class is loaded, and the virtual mode only exists in the Java 21
+ * version of the class. Run the benchmark on JDK 21 with the multi-release jar ahead of the classes on the class path
+ * (see the README), otherwise the virtual runs fail.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReconcileBenchmark {
+
+    private static final String NAMESPACE = "default";
+
+    @Param({"10000"})
+    private int jobs;
+
+    @Param({"16"})
+    private int workers;
+
+    @Param({"10"})
+    private int latency;
+
+    @Param({"64"})
+    private int inflight;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    private KubernetesMockServer server;
+    private JobFactory factory;
+    private Map<String, Job> store;
+    private Semaphore permits;
+    private Conductor<EJobState, Job> conductor;
+    private CountDownLatch done;
+
+    @Setup
+    public void setUp() {
+        /*
+         * Each parameter set runs in a fork of its own, so the mode can be picked before the Threads class is loaded.
+         */
+        System.setProperty(Threads.VIRTUAL_THREADS_PROPERTY, String.valueOf(virtual));
+        if (Threads.isVirtual() != virtual) {
+            throw new IllegalStateException("Virtual threads need JDK 21 and the multi-release jar");
+        }
+        server = MockServers.start();
+        var crd = new CustomResourceDefinitionBuilder()
+                .withNewMetadata().withName(JobFactory.CNP_JOB_CRD_NAME).endMetadata()
+                .withNewSpec()
+                .withGroup(CNP_CRD_GROUP)
+                .withVersion(CNP_CRD_VERSION)
+                .withScope("Namespaced")
+                .withNewNames().withKind("Job").withPlural("cnpjobs").endNames()
+                .endSpec()
+                .build();
+        server.expect()
+              .get()
+              .withPath("/apis/apiextensions.k8s.io/v1beta1/customresourcedefinitions")
+              .andReturn(200, new CustomResourceDefinitionListBuilder().withItems(crd).build())
+              .always();
+        server.expect()
+              .patch()
+              .delay(latency, TimeUnit.MILLISECONDS)
+              .withPath("/apis/" + CNP_CRD_GROUP + "/" + CNP_CRD_VERSION + "/namespaces/" + NAMESPACE + "/cnpjobs/job")
+              .andReturn(200, "{}")
+              .always();
+        factory = new JobFactory(server.createClient());
+        store = new ConcurrentHashMap<>();
+        permits = new Semaphore(inflight);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+    }
+
+    /*
+     * Start a fresh conductor with every job back in POD_CREATION. The jobs are stored under distinct keys but share
+     * their name, so that a single expectation answers all the patches.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        for (var i = 0; i < jobs; i += 1) {
+            var job = new Job();
+            job.setMetadata(new ObjectMetaBuilder().withNamespace(NAMESPACE).withName("job").build());
+            job.setSpec(new JobSpec());
+            job.getSpec().setState(EJobState.POD_CREATION);
+            store.put(JobStore.getKey(NAMESPACE, "job-" + i), job);
+        }
+        done = new CountDownLatch(jobs);
+        var table = new TransitionTable<EJobState, Job>(EJobState.class)
+                .add(EJobState.POD_CREATION, null, (k, j) -> {
+                    if (!update(j)) {
+                        conductor.retry(k);
+                        return;
+                    }
+                    j.getSpec().setState(EJobState.READY);
+                    done.countDown();
+                });
+        conductor = new Conductor<>("conductor", workers, table, k -> Optional.ofNullable(store.get(k)),
+                                    j -> j.getSpec().getState());
+        conductor.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws InterruptedException {
+        conductor.close();
+    }
+
+    private boolean update(Job job) {
+        permits.acquireUninterruptibly();
+        try {
+            return factory.update(job, EJobState.READY);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Benchmark
+    public void reconcile() throws InterruptedException {
+        for (var key : store.keySet()) {
+            conductor.register(key);
+        }
+        done.await();
+    }
+
+}
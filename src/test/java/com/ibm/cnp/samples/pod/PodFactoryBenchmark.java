@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.samples.pod;
+
+import com.ibm.cnp.samples.MockServers;
+import com.ibm.cnp.samples.job.Job;
+import com.ibm.cnp.samples.job.JobSpec;
+import com.ibm.cnp.utils.RateLimiter;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import lombok.var;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Time to create 10k pods for a job against a local mock API server that allocates the names from generateName, like
+ * the real one. The rate limiter is opened wide so that the benchmark measures the factory and the HTTP round trips.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodFactoryBenchmark {
+
+    private static final String NAMESPACE = "default";
+
+    @Param({"10000"})
+    private int pods;
+
+    @Param({"1", "16"})
+    private int parallelism;
+
+    private KubernetesMockServer server;
+    private PodFactory factory;
+    private Job job;
+
+    @Setup
+    public void setUp() {
+        server = MockServers.start();
+        var counter = new AtomicLong();
+        server.expect()
+              .post()
+              .withPath("/api/v1/namespaces/" + NAMESPACE + "/pods")
+              .andReply(201, request -> {
+                  Pod pod = Serialization.unmarshal(request.getBody().readUtf8(), Pod.class);
+                  pod.getMetadata().setName(pod.getMetadata().getGenerateName() + counter.incrementAndGet());
+                  return pod;
+              })
+              .always();
+        factory = new PodFactory(server.createClient(), parallelism, new RateLimiter(1e9, Integer.MAX_VALUE));
+        var spec = new JobSpec();
+        spec.setImage("busybox");
+        spec.setArgs(Collections.singletonList("true"));
+        job = new Job();
+        job.setMetadata(new ObjectMetaBuilder().withNamespace(NAMESPACE).withName("job").withUid("uid").build());
+        job.setSpec(spec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+        server.destroy();
+    }
+
+    @Benchmark
+    public List<String> addAll() {
+        var created = factory.addAll(job, pods);
+        if (created.size() != pods) {
+            throw new IllegalStateException("Created " + created.size() + " pods out of " + pods);
+        }
+        return created;
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Contention benchmark of the coordinator: threads apply commands to resources picked at random. Each command does a
+ * fixed amount of work in run(), standing for the API call, and completes right away. With many resources, throughput
+ * should scale with the number of threads up to the core count; with a single resource, commands are serialized by
+ * design.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoordinatorBenchmark {
+
+    private enum Status implements ICommandStatus {
+        Done,
+        Unknown;
+
+        @Override
+        public boolean isUnknown() {
+            return this == Unknown;
+        }
+    }
+
+    private static class WorkCommand extends Command<Pod, Status> {
+
+        private final long work;
+
+        WorkCommand(long work) {
+            super(Status.Unknown);
+            this.work = work;
+        }
+
+        @Override
+        public Action run() {
+            Blackhole.consumeCPU(work);
+            set(Status.Done);
+            return Action.Remove;
+        }
+
+        @Override
+        public boolean check(Pod pre, Pod cur) {
+            return true;
+        }
+
+        @Override
+        public Status timedOut() {
+            return Status.Unknown;
+        }
+
+        @Override
+        public Status failed() {
+            return Status.Unknown;
+        }
+
+        @Override
+        public Status notFound() {
+            return Status.Unknown;
+        }
+
+    }
+
+    private static class BenchmarkCoordinator extends Coordinator<Pod, Status> {
+
+        CompletableFuture<Status> submit(Pod pod, Command<Pod, Status> command) {
+            return apply(pod, command);
+        }
+
+    }
+
+    @Param({"1", "1024"})
+    private int resources;
+
+    @Param({"1000"})
+    private long work;
+
+    private BenchmarkCoordinator coordinator;
+    private Pod[] pods;
+
+    @Setup
+    public void setUp() {
+        coordinator = new BenchmarkCoordinator();
+        pods = new Pod[resources];
+        for (int i = 0; i < resources; i += 1) {
+            pods[i] = new PodBuilder().withNewMetadata()
+                                      .withNamespace("default")
+                                      .withName("pod-" + i)
+                                      .endMetadata()
+                                      .build();
+            coordinator.onAddition(new AbstractEvent<Pod>(this, AbstractEvent.Type.ADDITION, null, pods[i]) {
+            });
+        }
+    }
+
+    private Status apply() {
+        var pod = pods[ThreadLocalRandom.current().nextInt(pods.length)];
+        return coordinator.submit(pod, new WorkCommand(work)).join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Status threads1() {
+        return apply();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Status threads2() {
+        return apply();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Status threads4() {
+        return apply();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Status threadsMax() {
+        return apply();
+    }
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import com.ibm.cnp.utils.TimerWheel;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.microbean.kubernetes.controller.AbstractEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoordinatorTest {
+
+    private static final String STATE_LABEL = "state";
+
+    private enum Status implements ICommandStatus {
+        Failure,
+        NotFound,
+        Success,
+        TimedOut,
+        Unknown;
+
+        @Override
+        public boolean isUnknown() {
+            return this == Unknown;
+        }
+    }
+
+    /*
+     * Command that waits for the state label of the pod to reach a target value.
+     */
+    private static class SetStateCommand extends Command<Pod, Status> {
+
+        private final AtomicInteger runs;
+        private final boolean mergeable;
+        private final boolean waits;
+        private String target;
+
+        SetStateCommand(String target, boolean waits, boolean mergeable, RetryPolicy policy) {
+            super(Status.Unknown, policy);
+            this.runs = new AtomicInteger();
+            this.mergeable = mergeable;
+            this.waits = waits;
+            this.target = target;
+        }
+
+        SetStateCommand(String target) {
+            this(target, true, false, null);
+        }
+
+        @Override
+        public Action run() {
+            runs.incrementAndGet();
+            if (!waits) {
+                set(Status.Success);
+                return Action.Remove;
+            }
+            return Action.Wait;
+        }
+
+        @Override
+        protected boolean merge(Command<Pod, Status> next) {
+            if (!mergeable || !(next instanceof SetStateCommand)) {
+                return false;
+            }
+            this.target = ((SetStateCommand) next).target;
+            return true;
+        }
+
+        @Override
+        public boolean check(Pod pre, Pod cur) {
+            if (!target.equals(cur.getMetadata().getLabels().get(STATE_LABEL))) {
+                return false;
+            }
+            set(Status.Success);
+            return true;
+        }
+
+        @Override
+        public Status timedOut() {
+            return Status.TimedOut;
+        }
+
+        @Override
+        public Status failed() {
+            return Status.Failure;
+        }
+
+        @Override
+        public Status notFound() {
+            return Status.NotFound;
+        }
+
+    }
+
+    private static class TestCoordinator extends Coordinator<Pod, Status> {
+
+        TestCoordinator(RetryPolicy policy, TimerWheel timer, ExecutorService retries) {
+            super(policy, timer, retries);
+        }
+
+        CompletableFuture<Status> submit(Pod pod, Command<Pod, Status> command) {
+            return apply(pod, command);
+        }
+
+    }
+
+    private TimerWheel timer;
+    private ExecutorService retries;
+    private TestCoordinator coordinator;
+
+    private static Pod pod(String state) {
+        return new PodBuilder().withNewMetadata()
+                               .withNamespace("default")
+                               .withName("pod")
+                               .addToLabels(STATE_LABEL, state)
+                               .endMetadata()
+                               .build();
+    }
+
+    private static AbstractEvent<Pod> event(AbstractEvent.Type type, Pod pre, Pod cur) {
+        return new AbstractEvent<Pod>(CoordinatorTest.class, type, pre, cur) {
+        };
+    }
+
+    private void modify(String from, String to) {
+        coordinator.onModification(event(AbstractEvent.Type.MODIFICATION, pod(from), pod(to)));
+    }
+
+    @Before
+    public void setUp() {
+        timer = new TimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 64);
+        retries = Executors.newSingleThreadExecutor();
+        coordinator = new TestCoordinator(new RetryPolicy(10, 0, 10, TimeUnit.SECONDS), timer, retries);
+        coordinator.onAddition(event(AbstractEvent.Type.ADDITION, null, pod("a")));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        retries.shutdownNow();
+        timer.close();
+    }
+
+    @Test
+    public void commandCompletesOnMatchingModification() {
+        var command = new SetStateCommand("b");
+        var future = coordinator.submit(pod("a"), command);
+        assertFalse(future.isDone());
+        modify("a", "c");
+        assertFalse(future.isDone());
+        modify("c", "b");
+        assertEquals(Status.Success, future.join());
+    }
+
+    @Test
+    public void commandsOfTheSameResourceRunInOrder() {
+        var first = new SetStateCommand("b");
+        var second = new SetStateCommand("c");
+        var f1 = coordinator.submit(pod("a"), first);
+        var f2 = coordinator.submit(pod("a"), second);
+        assertEquals(1, first.runs.get());
+        assertEquals(0, second.runs.get());
+        modify("a", "b");
+        assertEquals(Status.Success, f1.join());
+        assertEquals(1, second.runs.get());
+        modify("b", "c");
+        assertEquals(Status.Success, f2.join());
+    }
+
+    @Test
+    public void pendingCommandsAreMerged() {
+        var head = new SetStateCommand("b");
+        var pending = new SetStateCommand("c", true, true, null);
+        var merged = new SetStateCommand("d");
+        coordinator.submit(pod("a"), head);
+        var f2 = coordinator.submit(pod("a"), pending);
+        var f3 = coordinator.submit(pod("a"), merged);
+        modify("a", "b");
+        assertEquals(1, pending.runs.get());
+        modify("b", "d");
+        assertEquals(Status.Success, f2.join());
+        assertEquals(Status.Success, f3.join());
+        assertEquals(0, merged.runs.get());
+    }
+
+    @Test
+    public void failedCommandIsRemoved() {
+        var failing = new SetStateCommand("b") {
+            @Override
+            public Action run() {
+                throw new IllegalStateException("boom");
+            }
+        };
+        var next = new SetStateCommand("c", false, false, null);
+        var f1 = coordinator.submit(pod("a"), failing);
+        var f2 = coordinator.submit(pod("a"), next);
+        assertEquals(Status.Failure, f1.join());
+        assertEquals(Status.Success, f2.join());
+    }
+
+    @Test
+    public void commandTimesOutAfterItsRetries() throws Exception {
+        var policy = new RetryPolicy(30, 2, 10, TimeUnit.MILLISECONDS);
+        var command = new SetStateCommand("b", true, false, policy);
+        var next = new SetStateCommand("c", false, false, null);
+        var f1 = coordinator.submit(pod("a"), command);
+        var f2 = coordinator.submit(pod("a"), next);
+        assertEquals(Status.TimedOut, f1.get(5, TimeUnit.SECONDS));
+        assertEquals(3, command.runs.get());
+        assertEquals(Status.Success, f2.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void retriedCommandCompletesOnLateModification() throws Exception {
+        var policy = new RetryPolicy(30, 1000, 10, TimeUnit.MILLISECONDS);
+        var command = new SetStateCommand("b", true, false, policy);
+        var future = coordinator.submit(pod("a"), command);
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (command.runs.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(command.runs.get() >= 2);
+        modify("a", "b");
+        assertEquals(Status.Success, future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unknownResourceFailsFast() {
+        var future = coordinator.submit(new PodBuilder(pod("a")).editMetadata().withName("other").endMetadata().build(),
+                                        new SetStateCommand("b"));
+        assertEquals(Status.NotFound, future.join());
+    }
+
+    @Test
+    public void deletionCompletesPendingCommands() {
+        var f1 = coordinator.submit(pod("a"), new SetStateCommand("b"));
+        var f2 = coordinator.submit(pod("a"), new SetStateCommand("c"));
+        coordinator.onDeletion(event(AbstractEvent.Type.DELETION, null, pod("a")));
+        assertEquals(Status.NotFound, f1.join());
+        assertEquals(Status.NotFound, f2.join());
+        assertEquals(Status.NotFound, coordinator.submit(pod("a"), new SetStateCommand("b")).join());
+    }
+
+    @Test
+    public void interruptedWaitKeepsTheInterrupt() {
+        var command = new SetStateCommand("b");
+        Thread.currentThread().interrupt();
+        assertEquals(Status.Unknown, command.get());
+        assertTrue(Thread.interrupted());
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.sync;
+
+import lombok.var;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpectationsTest {
+
+    private static final String KEY = "default/job";
+
+    @Test
+    public void unknownKeyIsSatisfied() {
+        var expectations = new Expectations<String>();
+        assertTrue(expectations.isSatisfied(KEY));
+        assertTrue(expectations.getPendingCreations(KEY).isEmpty());
+        assertTrue(expectations.getPendingDeletions(KEY).isEmpty());
+        expectations.expectCreations(KEY, Collections.emptyList());
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void creationsAreSettledByName() {
+        var expectations = new Expectations<String>();
+        expectations.expectCreations(KEY, Arrays.asList("a", "b"));
+        assertFalse(expectations.isSatisfied(KEY));
+        expectations.creationObserved(KEY, "c");
+        assertEquals(2, expectations.getPendingCreations(KEY).size());
+        expectations.creationObserved(KEY, "a");
+        expectations.creationObserved(KEY, "a");
+        assertEquals(Collections.singleton("b"), expectations.getPendingCreations(KEY));
+        expectations.creationObserved(KEY, "b");
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void deletionsAreCountedOnce() {
+        var expectations = new Expectations<String>();
+        expectations.expectDeletions(KEY, Arrays.asList("a", "b"));
+        /*
+         * Deletion timestamp set, then removal.
+         */
+        expectations.deletionObserved(KEY, "a");
+        expectations.deletionObserved(KEY, "a");
+        assertEquals(Collections.singleton("b"), expectations.getPendingDeletions(KEY));
+        expectations.deletionObserved(KEY, "b");
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void deletionSettlesAnUnobservedCreation() {
+        var expectations = new Expectations<String>();
+        expectations.expectCreations(KEY, Collections.singletonList("a"));
+        expectations.deletionObserved(KEY, "a");
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void failedDeletionsAreLowered() {
+        var expectations = new Expectations<String>();
+        expectations.expectDeletions(KEY, Arrays.asList("a", "b"));
+        expectations.lowerDeletions(KEY, Collections.singletonList("b"));
+        assertEquals(Collections.singleton("a"), expectations.getPendingDeletions(KEY));
+        expectations.lowerDeletions(KEY, Collections.singletonList("a"));
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void expectationsExpire() throws InterruptedException {
+        var expectations = new Expectations<String>(50, TimeUnit.MILLISECONDS);
+        expectations.expectCreations(KEY, Collections.singletonList("a"));
+        expectations.expectDeletions(KEY, Collections.singletonList("b"));
+        assertFalse(expectations.isSatisfied(KEY));
+        Thread.sleep(100);
+        assertTrue(expectations.isSatisfied(KEY));
+        assertTrue(expectations.getPendingCreations(KEY).isEmpty());
+    }
+
+    @Test
+    public void forgottenKeyIsSatisfied() {
+        var expectations = new Expectations<String>();
+        expectations.expectCreations(KEY, Collections.singletonList("a"));
+        expectations.forget(KEY);
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+    @Test
+    public void expectationsRacingObservationsAreNotLost() throws InterruptedException {
+        /*
+         * The observer settles the previous names, and drops the entry, while the next names are expected.
+         */
+        var expectations = new Expectations<String>();
+        var observed = new LinkedBlockingQueue<String>();
+        var losses = new AtomicInteger();
+        var observer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100000; i += 1) {
+                    expectations.creationObserved(KEY, observed.take());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        observer.start();
+        for (int i = 0; i < 100000; i += 1) {
+            var name = String.valueOf(i);
+            expectations.expectCreations(KEY, Collections.singletonList(name));
+            if (!expectations.getPendingCreations(KEY).contains(name)) {
+                losses.incrementAndGet();
+            }
+            observed.add(name);
+        }
+        observer.join();
+        assertEquals(0, losses.get());
+        assertTrue(expectations.isSatisfied(KEY));
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.cnp.samples.job.EJobState;
+import com.ibm.cnp.samples.job.Job;
+import com.ibm.cnp.samples.job.JobSpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import lombok.var;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of copying a job and a pod: with deepCopy(), through a JSON tree with the shared mapper, through a string with a
+ * new mapper as deepCopy() used to, and for pods with their builder. Jobs have a registered copier, pods go through
+ * the tree as their builder is slower. Run with -prof gc to compare the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectUtilsBenchmark {
+
+    private Job job;
+    private Pod pod;
+
+    @Setup
+    public void setUp() {
+        var spec = new JobSpec();
+        spec.setState(EJobState.POD_CREATION);
+        spec.setDesired(10);
+        spec.setImage("busybox:latest");
+        spec.setArgs(Arrays.asList("sh", "-c", "sleep 3600"));
+        job = new Job();
+        job.setApiVersion("cnp.ibm.com/v1alpha1");
+        job.setKind("Job");
+        job.setMetadata(new ObjectMetaBuilder().withNamespace("default")
+                                               .withName("job")
+                                               .withUid("8a4f1c2e-0d3b-4f6a-9c1e-2b7d5e6f8a90")
+                                               .withResourceVersion("12345")
+                                               .withGeneration(3L)
+                                               .addToLabels("app", "cnp")
+                                               .build());
+        job.setSpec(spec);
+        pod = new PodBuilder().withNewMetadata()
+                              .withNamespace("default")
+                              .withName("job-x7k2p")
+                              .withGenerateName("job-")
+                              .withUid("3c9e7a1b-5f2d-4e8c-a6b0-1d4f7e9c2a35")
+                              .withResourceVersion("67890")
+                              .addToLabels("app", "cnp")
+                              .addToLabels("job", "job")
+                              .addNewOwnerReference()
+                              .withApiVersion("cnp.ibm.com/v1alpha1")
+                              .withKind("Job")
+                              .withName("job")
+                              .withUid("8a4f1c2e-0d3b-4f6a-9c1e-2b7d5e6f8a90")
+                              .withController(true)
+                              .withBlockOwnerDeletion(true)
+                              .endOwnerReference()
+                              .endMetadata()
+                              .withNewSpec()
+                              .withRestartPolicy("Never")
+                              .addNewContainer()
+                              .withName("main")
+                              .withImage("busybox:latest")
+                              .withCommand("sh", "-c", "sleep 3600")
+                              .endContainer()
+                              .endSpec()
+                              .withNewStatus()
+                              .withPhase("Running")
+                              .withPodIP("10.0.0.42")
+                              .endStatus()
+                              .build();
+    }
+
+    private static <T> T copyThroughString(T original, Class<T> clazz) throws IOException {
+        var mapper = new ObjectMapper();
+        return mapper.readValue(mapper.writeValueAsString(original), clazz);
+    }
+
+    private static <T> T copyThroughTree(T original, Class<T> clazz) throws IOException {
+        var mapper = ObjectUtils.getObjectMapper();
+        return mapper.treeToValue(mapper.valueToTree(original), clazz);
+    }
+
+    @Benchmark
+    public Job jobDeepCopy() {
+        return ObjectUtils.deepCopy(job, Job.class).get();
+    }
+
+    @Benchmark
+    public Job jobTree() throws IOException {
+        return copyThroughTree(job, Job.class);
+    }
+
+    @Benchmark
+    public Job jobString() throws IOException {
+        return copyThroughString(job, Job.class);
+    }
+
+    @Benchmark
+    public Pod podDeepCopy() {
+        return ObjectUtils.deepCopy(pod, Pod.class).get();
+    }
+
+    @Benchmark
+    public Pod podBuilder() {
+        return new PodBuilder(pod).build();
+    }
+
+    @Benchmark
+    public Pod podTree() throws IOException {
+        return copyThroughTree(pod, Pod.class);
+    }
+
+    @Benchmark
+    public Pod podString() throws IOException {
+        return copyThroughString(pod, Pod.class);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void qpsMustBePositive() {
+        new RateLimiter(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstMustBePositive() {
+        new RateLimiter(1, 0);
+    }
+
+    @Test
+    public void burstIsAvailableRightAway() {
+        var limiter = new RateLimiter(1, 5);
+        for (int i = 0; i < 5; i += 1) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void tokensRefillAtTheRate() throws InterruptedException {
+        var limiter = new RateLimiter(100, 1);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        Thread.sleep(50);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void acquireWaitsForTheNextToken() throws InterruptedException {
+        var limiter = new RateLimiter(50, 1);
+        var start = System.nanoTime();
+        for (int i = 0; i < 6; i += 1) {
+            limiter.acquire();
+        }
+        /*
+         * The first token is in the bucket, the next five come every 20ms.
+         */
+        var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Took " + elapsed + "ms", elapsed >= 90);
+    }
+
+    @Test
+    public void waitingCallersReserveTheirTokens() throws InterruptedException {
+        var limiter = new RateLimiter(20, 1);
+        limiter.acquire();
+        var waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(10);
+        /*
+         * The waiter reserved the next token, so it is not available to others when it comes.
+         */
+        assertFalse(limiter.tryAcquire());
+        waiter.join();
+        assertFalse(limiter.tryAcquire());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+
+    private static final long TICK = 10;
+
+    private TimerWheel timer;
+
+    @Before
+    public void setUp() {
+        /*
+         * A small wheel, so that the tests also cover timeouts that span several rounds.
+         */
+        timer = new TimerWheel("test-timer", TICK, TimeUnit.MILLISECONDS, 4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        timer.close();
+    }
+
+    @Test
+    public void timeoutFiresAfterItsDelay() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var start = System.nanoTime();
+        var timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void timeoutSpanningSeveralRoundsFiresOnce() throws InterruptedException {
+        var fired = new CopyOnWriteArrayList<Long>();
+        var start = System.nanoTime();
+        timer.schedule(() -> fired.add(System.nanoTime() - start), 10 * TICK, TimeUnit.MILLISECONDS);
+        Thread.sleep(30 * TICK);
+        assertEquals(1, fired.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(fired.get(0)) >= 10 * TICK);
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var fired = new AtomicBoolean();
+        var cancelled = timer.schedule(() -> fired.set(true), 2 * TICK, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.cancel());
+        timer.schedule(latch::countDown, 5 * TICK, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(fired.get());
+        assertFalse(cancelled.isExpired());
+    }
+
+    @Test
+    public void timeoutsFireInDeadlineOrder() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        var latch = new CountDownLatch(3);
+        for (var i : new int[] { 3, 1, 2 }) {
+            timer.schedule(() -> {
+                order.add(i);
+                latch.countDown();
+            }, i * 3 * TICK, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3), order);
+    }
+
+    @Test
+    public void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        timer.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, TICK, TimeUnit.MILLISECONDS);
+        timer.schedule(latch::countDown, 3 * TICK, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+}
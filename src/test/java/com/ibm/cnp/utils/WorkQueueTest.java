@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 IBM Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.cnp.utils;
+
+import lombok.var;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WorkQueueTest {
+
+    private TimerWheel timer;
+
+    @Before
+    public void setUp() {
+        timer = new TimerWheel("test-timer", 5, TimeUnit.MILLISECONDS, 64);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        timer.close();
+    }
+
+    private WorkQueue<String> newQueue(int capacity) {
+        return new WorkQueue<>(capacity, timer, 10, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void queuedKeysAreCoalesced() throws InterruptedException {
+        var queue = newQueue(Integer.MAX_VALUE);
+        queue.add("a");
+        queue.add("b");
+        queue.add("a");
+        assertEquals(2, queue.size());
+        assertEquals("a", queue.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("b", queue.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void keyAddedWhileProcessedIsQueuedByDone() throws InterruptedException {
+        var queue = newQueue(Integer.MAX_VALUE);
+        queue.add("a");
+        var key = queue.poll(0, TimeUnit.MILLISECONDS);
+        queue.add("a");
+        queue.add("a");
+        assertEquals(0, queue.size());
+        queue.done(key);
+        assertEquals(1, queue.size());
+        assertEquals("a", queue.poll(0, TimeUnit.MILLISECONDS));
+        queue.done("a");
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void addAfterQueuesTheKeyLater() throws InterruptedException {
+        var queue = newQueue(Integer.MAX_VALUE);
+        queue.addAfter("a", 50, TimeUnit.MILLISECONDS);
+        assertEquals(0, queue.size());
+        assertEquals("a", queue.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rateLimitedKeysBackOffUntilForgotten() throws InterruptedException {
+        var queue = newQueue(Integer.MAX_VALUE);
+        for (int i = 0; i < 3; i += 1) {
+            queue.addRateLimited("a");
+            assertEquals("a", queue.poll(5, TimeUnit.SECONDS));
+            queue.done("a");
+        }
+        assertEquals(3, queue.getRequeues("a"));
+        queue.forget("a");
+        assertEquals(0, queue.getRequeues("a"));
+    }
+
+    @Test
+    public void addBlocksOnlyNewKeysWhenFull() throws InterruptedException {
+        var queue = newQueue(1);
+        queue.add("a");
+        queue.add("a");
+        queue.addUnbounded("b");
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getHighWaterMark());
+        var added = new CountDownLatch(1);
+        var producer = new Thread(() -> {
+            queue.add("c");
+            added.countDown();
+        });
+        producer.start();
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        assertEquals("a", queue.poll(0, TimeUnit.MILLISECONDS));
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        assertEquals("b", queue.poll(0, TimeUnit.MILLISECONDS));
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        assertEquals("c", queue.poll(0, TimeUnit.MILLISECONDS));
+        producer.join();
+    }
+
+    @Test
+    public void shutDownReleasesWaitersAndDropsKeys() throws InterruptedException {
+        var queue = newQueue(1);
+        queue.add("a");
+        var producer = new Thread(() -> queue.add("b"));
+        producer.start();
+        queue.shutDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        queue.add("c");
+        assertEquals(1, queue.size());
+        assertEquals("a", queue.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll(1, TimeUnit.SECONDS));
+    }
+
+}